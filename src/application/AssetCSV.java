@@ -0,0 +1,147 @@
+package application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The AssetCSV class converts assets to and from the rows stored in assets.csv.
+ * Each row holds the seven asset fields separated by ", " in the order
+ * name, category, location, purchase date, description, purchased value and
+ * warranty expiration date.
+ */
+public final class AssetCSV {
+	static final String NO_DATE = "No date provided"; // Placeholder written for a missing date
+	static final int FIELD_COUNT = 7; // Number of columns in a row
+	private static final int WRITE_BUFFER_SIZE = 1 << 16; // Characters buffered before each write to the channel
+
+	private AssetCSV() {
+		// Utility class, not instantiated
+	}
+
+	/**
+	 * Parses a single asset row from the CSV file.
+	 *
+	 * @param line The line of text to parse.
+	 * @return The parsed AssetInfo object, or null if the line does not hold an asset.
+	 */
+	public static AssetInfo parseAsset(String line) {
+		String[] assetDetails = line.split(",");
+		if (assetDetails.length < FIELD_COUNT) {
+			if (!line.trim().isEmpty()) {
+				System.err.println("Skipping malformed asset row: " + line);
+			}
+			return null;
+		}
+		AssetInfo asset = new AssetInfo();
+		asset.setName(assetDetails[0].trim());
+		asset.setCategory(assetDetails[1].trim());
+		asset.setLocation(assetDetails[2].trim());
+		asset.setPurchaseDate(parseDate(assetDetails[3].trim()));
+		asset.setDescription(assetDetails[4].trim());
+		asset.setPurchasedValue(assetDetails[5].trim());
+		asset.setWarrantyExpirationDate(parseDate(assetDetails[6].trim()));
+		return asset;
+	}
+
+	/**
+	 * Parses a date string into a LocalDate object.
+	 *
+	 * @param date The date string to parse.
+	 * @return The parsed LocalDate object, or null if the date is blank, "No date provided" or invalid.
+	 */
+	public static LocalDate parseDate(String date) {
+		if (date.isEmpty() || date.equalsIgnoreCase(NO_DATE)) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
+		} catch (DateTimeParseException e) {
+			System.err.println("Error parsing date: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Formats an asset as a single CSV row, without the line terminator.
+	 *
+	 * @param asset The asset to format.
+	 * @return The CSV row for the asset.
+	 */
+	public static String formatAsset(AssetInfo asset) {
+		return String.join(", ", asset.getName(), asset.getCategory(), asset.getLocation(),
+				asset.getPurchaseDate(), asset.getDescription(), asset.getPurchasedValue(),
+				asset.getWarrantyExpirationDate());
+	}
+
+	/**
+	 * Writes the given assets to a new temporary file next to a CSV file in a single
+	 * buffered pass and forces it to disk. The caller moves it into place with
+	 * {@link #replaceFile(Path, Path)}, so a crash part-way through leaves the
+	 * previous file intact.
+	 *
+	 * @param path The CSV file the temporary file will replace.
+	 * @param assets The assets to write, in order.
+	 * @return The temporary file holding the rows.
+	 * @throws IOException If the temporary file cannot be written.
+	 */
+	static Path writeTempFile(Path path, Iterable<AssetInfo> assets) throws IOException {
+		Path temp = tempFileFor(path);
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				BufferedWriter out = new BufferedWriter(
+						new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8),
+						WRITE_BUFFER_SIZE)) {
+			for (AssetInfo asset : assets) {
+				out.write(formatAsset(asset));
+				out.newLine();
+			}
+			out.flush();
+			channel.force(true); // Make sure the rows reach the disk before the rename
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		return temp;
+	}
+
+	/**
+	 * Returns the temporary file used while replacing a file. It sits in the same
+	 * directory so the final rename stays on one file system, and is created with
+	 * the default permissions rather than the owner-only ones of
+	 * {@link Files#createTempFile}.
+	 *
+	 * @param path The file to be replaced.
+	 * @return The temporary file.
+	 */
+	static Path tempFileFor(Path path) {
+		return path.resolveSibling(path.getFileName() + ".tmp");
+	}
+
+	/**
+	 * Renames a fully written temporary file over a CSV file, atomically where the
+	 * file system supports it.
+	 *
+	 * @param temp The temporary file produced by {@link #writeTempFile(Path, Iterable)}.
+	 * @param path The CSV file to replace.
+	 * @throws IOException If the file cannot be moved into place.
+	 */
+	static void replaceFile(Path temp, Path path) throws IOException {
+		try {
+			Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package application;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * The AssetChanges class carries the additions, edits and deletions made through the
+ * AssetRepository to the screens showing assets. The repository reports each change
+ * like it does to its indexes, on whichever thread made it; the changes are queued
+ * and handed to the listeners on the JavaFX Application Thread once per frame, so a
+ * burst of changes redraws each screen once.
+ *
+ * Changes to the same asset within a frame are folded into one: an asset added and
+ * then edited is reported as added, and an asset added or edited and then removed
+ * is reported as removed, as a search running meanwhile may have found it. Ids are
+ * never used again, so an asset is never removed and then added.
+ *
+ * Changes are queued even while no listener is added, as a screen starting to
+ * follow them may already hold a result its search read before they were made.
+ * Only without a JavaFX toolkit, where nothing shows assets, are they dropped.
+ */
+final class AssetChanges implements AssetIndex {
+	/**
+	 * The Kind enum tells what happened to an asset.
+	 */
+	enum Kind {
+		ADDED, UPDATED, REMOVED
+	}
+
+	/**
+	 * The Listener interface is implemented by whatever shows assets and follows the
+	 * changes made to them.
+	 */
+	interface Listener {
+		/**
+		 * Receives the changes made since the last call, on the JavaFX Application Thread.
+		 *
+		 * @param changes What happened to each changed asset, by id, in the order the
+		 *                assets were first changed.
+		 */
+		void assetsChanged(Map<Integer, Kind> changes);
+	}
+
+	private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>(); // Listeners, called in the order they were added
+	private Map<Integer, Kind> pending = new LinkedHashMap<>(); // Changes not handed out yet, guarded by this
+	private boolean scheduled; // Whether a frame will hand out the pending changes, guarded by this
+	private Frame frame; // Hands out the pending changes on the next frame, created on the JavaFX Application Thread
+	private volatile boolean headless; // Whether there is no JavaFX toolkit to hand out the changes
+
+	/**
+	 * Adds a listener. Adding a listener again has no effect.
+	 *
+	 * @param listener The listener.
+	 */
+	void addListener(Listener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * Removes a listener.
+	 *
+	 * @param listener The listener.
+	 */
+	void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void add(AssetInfo asset) {
+		record(asset.getId(), Kind.ADDED);
+	}
+
+	@Override
+	public void remove(AssetInfo asset) {
+		record(asset.getId(), Kind.REMOVED);
+	}
+
+	@Override
+	public void update(AssetInfo current, AssetInfo updated) {
+		record(current.getId(), Kind.UPDATED);
+	}
+
+	/**
+	 * Hands the pending changes to the listeners. Called on each frame that follows
+	 * a change, and by tools that run without a JavaFX toolkit.
+	 */
+	void flush() {
+		Map<Integer, Kind> changes;
+		synchronized (this) {
+			changes = pending;
+			pending = new LinkedHashMap<>();
+			scheduled = false;
+		}
+		if (changes.isEmpty()) {
+			return;
+		}
+		Map<Integer, Kind> view = Collections.unmodifiableMap(changes);
+		for (Listener listener : listeners) {
+			listener.assetsChanged(view);
+		}
+	}
+
+	/**
+	 * Queues a change, folding it into any earlier change to the same asset, and
+	 * makes sure the next frame hands it out.
+	 *
+	 * @param id The id of the asset.
+	 * @param kind What happened to it.
+	 */
+	private void record(int id, Kind kind) {
+		if (headless && listeners.isEmpty()) {
+			return; // Without a toolkit nothing shows assets, and flush() is only called for listeners
+		}
+		synchronized (this) {
+			if (!pending.containsKey(id) || kind == Kind.REMOVED) {
+				pending.put(id, kind); // An edit of a pending addition or edit is already covered
+			}
+			if (!scheduled) {
+				scheduled = schedule(); // Tried again on the next change if there is no toolkit yet
+			}
+		}
+	}
+
+	/**
+	 * Starts the timer that hands out the pending changes on the next frame. Handing
+	 * them out from Platform.runLater could run several times between two frames while
+	 * a background thread keeps making changes; the timer runs at most once per frame.
+	 *
+	 * @return true if the timer will run, false if there is no JavaFX toolkit to run it.
+	 */
+	private boolean schedule() {
+		try {
+			Platform.runLater(() -> {
+				if (frame == null) {
+					frame = new Frame(this);
+				}
+				frame.start();
+			});
+			return true;
+		} catch (IllegalStateException | NoClassDefFoundError e) {
+			headless = true; // No JavaFX toolkit, as in tools run without a window; the changes wait for flush()
+			return false;
+		}
+	}
+
+	/**
+	 * The Frame class is the timer handing out the pending changes. It is a class of
+	 * its own so that the repository loads without JavaFX, as tools reading the
+	 * assets do.
+	 */
+	private static final class Frame extends AnimationTimer {
+		private final AssetChanges changes; // Changes to hand out
+
+		/**
+		 * Creates a timer for a queue of changes.
+		 *
+		 * @param changes The changes.
+		 */
+		private Frame(AssetChanges changes) {
+			this.changes = changes;
+		}
+
+		@Override
+		public void handle(long now) {
+			stop(); // Runs again only once more changes are made
+			changes.flush();
+		}
+	}
+}
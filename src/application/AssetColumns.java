@@ -0,0 +1,183 @@
+package application;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.CellDataFeatures;
+import javafx.scene.control.TableView;
+import javafx.util.Callback;
+
+/**
+ * The AssetColumns class binds table columns to their values through plain accessor
+ * functions. PropertyValueFactory looks the getter up by reflection and wraps the
+ * result in a new property every time a cell is drawn; here the getter is called
+ * directly, once per row, and the value is kept for the next time the row is drawn,
+ * until the row is fetched again or the table is given new items. Sorting by a
+ * column sorts on the typed field behind it rather than on the text shown.
+ */
+final class AssetColumns {
+	static final int CACHED_ROWS = 1024; // Rows whose values a column keeps before starting over
+
+	private AssetColumns() {
+	}
+
+	/**
+	 * Binds the seven asset columns every table screen shows.
+	 *
+	 * @param table The table.
+	 * @param name The column for the asset name.
+	 * @param category The column for the category.
+	 * @param location The column for the location.
+	 * @param purchaseDate The column for the purchase date.
+	 * @param description The column for the description.
+	 * @param purchasedValue The column for the purchased value.
+	 * @param warrantyExpirationDate The column for the warranty expiration date.
+	 */
+	static void bind(TableView<AssetInfo> table, TableColumn<AssetInfo, String> name,
+			TableColumn<AssetInfo, String> category, TableColumn<AssetInfo, String> location,
+			TableColumn<AssetInfo, String> purchaseDate, TableColumn<AssetInfo, String> description,
+			TableColumn<AssetInfo, String> purchasedValue, TableColumn<AssetInfo, String> warrantyExpirationDate) {
+		bind(table, name, AssetInfo::getName);
+		bind(table, category, AssetInfo::getCategory);
+		bind(table, location, AssetInfo::getLocation);
+		bind(table, purchaseDate, AssetInfo::getPurchaseDate);
+		bind(table, description, AssetInfo::getDescription);
+		bind(table, purchasedValue, AssetInfo::getPurchasedValue);
+		bind(table, warrantyExpirationDate, AssetInfo::getWarrantyExpirationDate);
+
+		Map<TableColumn<AssetInfo, ?>, AssetStore.SortKey> keys = new IdentityHashMap<>(); // Typed field behind each column
+		keys.put(name, AssetStore.SortKey.NAME);
+		keys.put(category, AssetStore.SortKey.CATEGORY);
+		keys.put(location, AssetStore.SortKey.LOCATION);
+		keys.put(purchaseDate, AssetStore.SortKey.PURCHASE_DATE);
+		keys.put(description, AssetStore.SortKey.DESCRIPTION);
+		keys.put(purchasedValue, AssetStore.SortKey.PURCHASED_VALUE);
+		keys.put(warrantyExpirationDate, AssetStore.SortKey.WARRANTY_EXPIRATION_DATE);
+		table.setSortPolicy(sorted -> sort(sorted, keys));
+	}
+
+	/**
+	 * Sorts a table by the typed fields behind its sort order, so dates sort by day
+	 * and values by amount instead of by their display text.
+	 *
+	 * @param table The table.
+	 * @param keys The field behind each column.
+	 * @return true, as the sort always succeeds.
+	 */
+	private static boolean sort(TableView<AssetInfo> table, Map<TableColumn<AssetInfo, ?>, AssetStore.SortKey> keys) {
+		if (!(table.getItems() instanceof PagedAssetList)) {
+			return TableView.DEFAULT_SORT_POLICY.call(table);
+		}
+		List<TableColumn<AssetInfo, ?>> order = table.getSortOrder();
+		AssetStore.SortKey[] fields = new AssetStore.SortKey[order.size()];
+		boolean[] descending = new boolean[order.size()];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = keys.get(order.get(i));
+			descending[i] = order.get(i).getSortType() == TableColumn.SortType.DESCENDING;
+		}
+		((PagedAssetList) table.getItems()).sort(fields, descending);
+		return true;
+	}
+
+	/**
+	 * Binds a column to an accessor.
+	 *
+	 * @param <S> The type of the rows.
+	 * @param table The table the column belongs to; its cached values are dropped
+	 *              whenever it is given new items.
+	 * @param column The column.
+	 * @param getter Reads the value of a row.
+	 */
+	static <S> void bind(TableView<S> table, TableColumn<S, String> column, Function<S, String> getter) {
+		CellValues<S> values = new CellValues<>(getter);
+		column.setCellValueFactory(values);
+		table.itemsProperty().addListener((observable, oldItems, newItems) -> values.clear());
+	}
+
+	/**
+	 * The CellValues class is a cell value factory that calls an accessor and keeps
+	 * the values of the rows drawn last. Rows are told apart by identity, as the
+	 * same asset fetched again may hold different values after an edit.
+	 *
+	 * @param <S> The type of the rows.
+	 */
+	static final class CellValues<S> implements Callback<CellDataFeatures<S, String>, ObservableValue<String>> {
+		private final Function<S, String> getter; // Reads the value of a row
+		private final Map<S, ObservableValue<String>> cache = new IdentityHashMap<>(); // Values of the rows drawn last
+
+		/**
+		 * Creates a factory calling an accessor.
+		 *
+		 * @param getter Reads the value of a row.
+		 */
+		CellValues(Function<S, String> getter) {
+			this.getter = getter;
+		}
+
+		@Override
+		public ObservableValue<String> call(CellDataFeatures<S, String> features) {
+			S row = features.getValue();
+			ObservableValue<String> value = cache.get(row);
+			if (value == null) {
+				if (cache.size() >= CACHED_ROWS) {
+					cache.clear(); // Scrolling moved on; the rows on screen are cached again as they are drawn
+				}
+				value = new FixedValue(getter.apply(row));
+				cache.put(row, value);
+			}
+			return value;
+		}
+
+		/**
+		 * Drops the cached values.
+		 */
+		void clear() {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * The FixedValue class is an observable value that never changes, so it keeps no
+	 * listeners. The columns are read-only and a row gets a new value only when it
+	 * is fetched again.
+	 */
+	private static final class FixedValue implements ObservableValue<String> {
+		private final String value; // The value
+
+		/**
+		 * Creates a fixed value.
+		 *
+		 * @param value The value.
+		 */
+		private FixedValue(String value) {
+			this.value = value;
+		}
+
+		@Override
+		public String getValue() {
+			return value;
+		}
+
+		@Override
+		public void addListener(ChangeListener<? super String> listener) {
+		}
+
+		@Override
+		public void removeListener(ChangeListener<? super String> listener) {
+		}
+
+		@Override
+		public void addListener(InvalidationListener listener) {
+		}
+
+		@Override
+		public void removeListener(InvalidationListener listener) {
+		}
+	}
+}
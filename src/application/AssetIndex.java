@@ -0,0 +1,34 @@
+package application;
+
+/**
+ * The AssetIndex interface is implemented by the secondary indexes that the
+ * AssetRepository keeps up to date. The repository assigns an asset its id before
+ * passing it to an index, and an edited asset keeps the id of the one it replaces.
+ */
+interface AssetIndex {
+	/**
+	 * Adds a stored asset to the index.
+	 *
+	 * @param asset The asset, with its id assigned.
+	 */
+	void add(AssetInfo asset);
+
+	/**
+	 * Removes an asset from the index.
+	 *
+	 * @param asset The asset, as it was added.
+	 */
+	void remove(AssetInfo asset);
+
+	/**
+	 * Replaces an asset with its edited version. The default removes the old version
+	 * and adds the new one.
+	 *
+	 * @param current The asset as it was added.
+	 * @param updated The edited asset, carrying the same id.
+	 */
+	default void update(AssetInfo current, AssetInfo updated) {
+		remove(current);
+		add(updated);
+	}
+}
@@ -1,5 +1,7 @@
 package application;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 
 /**
@@ -14,6 +16,10 @@ public class AssetInfo {
     private String description;
     private String purchasedValue;
     private LocalDate warrantyExpirationDate;
+    private long valueCents = NO_VALUE; // Purchased value parsed into cents, NO_VALUE if missing or invalid
+    private int id = -1; // Internal id assigned by the AssetRepository, -1 until the asset is stored
+
+    static final long NO_VALUE = Long.MIN_VALUE; // Marks a purchased value that is not a number
     
     /**
      * Default Constructor
@@ -35,8 +41,8 @@ public class AssetInfo {
      */
     public AssetInfo(String name, String category, String location, LocalDate purchaseDate, String description, String purchasedValue, LocalDate warrantyExpirationDate) {
         this.name = name;
-        this.category = category;
-        this.location = location;
+        this.category = StringDictionary.CATEGORIES.intern(category); // Shared instance instead of a copy per asset
+        this.location = StringDictionary.LOCATIONS.intern(location);
         this.purchaseDate = purchaseDate; // Directly set purchase date
 
         // Sets description; defaults to "No description provided" if input is null or blank
@@ -44,6 +50,7 @@ public class AssetInfo {
 
         // Sets purchased value; defaults to "No value provided" if input is null or blank
         this.purchasedValue = (purchasedValue == null || purchasedValue.trim().isEmpty()) ? "No value provided" : purchasedValue;
+        this.valueCents = parseCents(this.purchasedValue); // Parsed once, so sorting and totals need no reparsing
 
         this.warrantyExpirationDate = warrantyExpirationDate; // Directly set warranty expiration date
     }
@@ -63,9 +70,9 @@ public class AssetInfo {
         return category;
     }
 
-    // Setter for category
+    // Setter for category; keeps the shared instance of the name
     public void setCategory(String category) {
-        this.category = category;
+        this.category = StringDictionary.CATEGORIES.intern(category);
     }
 
     // Getter for location
@@ -73,9 +80,9 @@ public class AssetInfo {
         return location;
     }
 
-    // Setter for location
+    // Setter for location; keeps the shared instance of the name
     public void setLocation(String location) {
-        this.location = location;
+        this.location = StringDictionary.LOCATIONS.intern(location);
     }
 
     // Getter for purchase date that returns the date as a String or "No date provided" if null
@@ -109,6 +116,17 @@ public class AssetInfo {
     // Setter for purchased value
     public void setPurchasedValue(String purchasedValue) {
         this.purchasedValue = purchasedValue;
+        this.valueCents = purchasedValue != null ? parseCents(purchasedValue) : NO_VALUE;
+    }
+
+    // Getter for the purchased value in cents, or NO_VALUE if it is missing or not a number
+    long getValueCents() {
+        return valueCents;
+    }
+
+    // Whether the purchased value is a number
+    boolean hasValue() {
+        return valueCents != NO_VALUE;
     }
 
     // Getter for warranty expiration date that returns the date as a String or "No date provided" if null
@@ -124,13 +142,70 @@ public class AssetInfo {
         this.warrantyExpirationDate = warrantyExpirationDate;
     }
     
+    // Getter for the internal id assigned by the AssetRepository
+    int getId() {
+        return id;
+    }
+
+    // Setter for the internal id, used by the AssetRepository only
+    void setId(int id) {
+        this.id = id;
+    }
     
+    /**
+     * Parses a purchased value into whole cents, rounding half up past two decimals.
+     *
+     * @param value The value as entered, such as "1499.99" or "No value provided".
+     * @return The value in cents, or NO_VALUE if it is not a number.
+     */
+    static long parseCents(String value) {
+        String text = value.trim();
+        // Fast path for plain values such as 1499.99
+        int length = text.length();
+        if (length > 0 && length <= 15) {
+            long cents = 0;
+            int fraction = -1; // Digits after the point, -1 before it
+            boolean plain = true;
+            for (int i = 0; i < length && plain; i++) {
+                char c = text.charAt(i);
+                if (c >= '0' && c <= '9' && fraction < 2) {
+                    cents = cents * 10 + (c - '0');
+                    if (fraction >= 0) {
+                        fraction++;
+                    }
+                } else if (c == '.' && fraction < 0 && i > 0) {
+                    fraction = 0;
+                } else {
+                    plain = false;
+                }
+            }
+            if (plain && fraction != 0) {
+                return fraction == 2 ? cents : fraction == 1 ? cents * 10 : cents * 100;
+            }
+        }
+        try {
+            return new BigDecimal(text).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return NO_VALUE;
+        }
+    }
+
+    /**
+     * Formats an amount of cents as a decimal value.
+     *
+     * @param cents The amount in cents.
+     * @return The value with two decimals, such as "1499.99".
+     */
+    static String formatCents(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
     //test purpose
     public void display() {
 	    System.out.println("Asset Information:");
-	    System.out.println("Name: " + (name != null ? name : "No name provided"));
-	    System.out.println("Category: " + (category != null ? category : "No category provided"));
-	    System.out.println("Location: " + (location != null ? location : "No location provided"));
+	    System.out.println("Name: " + (getName() != null ? getName() : "No name provided"));
+	    System.out.println("Category: " + (getCategory() != null ? getCategory() : "No category provided"));
+	    System.out.println("Location: " + (getLocation() != null ? getLocation() : "No location provided"));
 	    System.out.println("Purchase Date: " + getPurchaseDate());
 	    System.out.println("Description: " + getDescription());
 	    System.out.println("Purchased Value: " + getPurchasedValue());
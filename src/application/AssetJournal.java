@@ -0,0 +1,343 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The AssetJournal class is an append-only log of asset changes kept next to
+ * assets.csv. Each change is one short record, so an edit or deletion costs a
+ * single small write instead of a rewrite of the whole CSV file. When the assets
+ * are loaded, the journal is replayed over the rows of the CSV file.
+ *
+ * Records refer to assets by their position in the asset list at the time of the
+ * change:
+ * <pre>
+ * #base,&lt;size of assets.csv&gt;,&lt;last modified time of assets.csv&gt;
+ * A,&lt;csv row&gt;             asset appended to the end of the list
+ * U,&lt;position&gt;,&lt;csv row&gt;  asset at the position replaced
+ * D,&lt;position&gt;            asset at the position removed
+ * </pre>
+ * The header ties the journal to the CSV file it was written against. Once the
+ * journal has been folded into a new CSV file the header no longer matches, and
+ * the stale journal is discarded instead of being applied twice.
+ *
+ * Each record is forced to the disk before the change counts as saved. A
+ * compaction writes the journal of the new CSV file next to the old journal before
+ * the new CSV file is moved into place, so a crash between the two moves leaves a
+ * journal matching whichever CSV file is found on the next start.
+ */
+class AssetJournal {
+	static final String SUFFIX = ".journal"; // Appended to the CSV file name to name the journal
+	private static final String NEXT_SUFFIX = ".next"; // Appended to the journal name while a compaction swaps files
+	private static final String HEADER = "#base";
+
+	private final Path basePath; // CSV file the journal is replayed over
+	private final Path journalPath; // Journal file
+	private final Path nextPath; // Journal of the CSV file a compaction is moving into place
+	private FileChannel channel; // Open journal file, created on the first record
+	private BufferedWriter out; // Writer over the channel
+	private long size; // Bytes currently in the journal
+	private List<String> pending; // Records written since a compaction started, null when not compacting
+
+	/**
+	 * Creates the journal belonging to a CSV file.
+	 *
+	 * @param basePath The CSV file holding the assets.
+	 */
+	AssetJournal(Path basePath) {
+		this.basePath = basePath;
+		this.journalPath = basePath.resolveSibling(basePath.getFileName() + SUFFIX);
+		this.nextPath = journalPath.resolveSibling(journalPath.getFileName() + NEXT_SUFFIX);
+	}
+
+	/**
+	 * Applies the records of the journal to the assets loaded from the CSV file. A
+	 * journal written against a different version of the CSV file is discarded,
+	 * unless a compaction left the journal of that version behind when it stopped
+	 * between moving the new CSV file and its journal into place.
+	 *
+	 * @param assets The assets read from the CSV file, updated in place.
+	 * @throws IOException If the journal cannot be read or holds an invalid record;
+	 *                     the records before it have been applied.
+	 */
+	void replay(List<AssetInfo> assets) throws IOException {
+		String stamp = baseStamp(basePath);
+		if (Files.exists(nextPath)) {
+			if (stamp.equals(readHeader(nextPath))) {
+				moveIntoPlace(nextPath, journalPath); // The compaction stopped after moving the CSV file
+			} else {
+				Files.delete(nextPath); // The compaction stopped before moving the CSV file
+			}
+		}
+		if (!Files.exists(journalPath)) {
+			return;
+		}
+		boolean stale;
+		try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+			String header = reader.readLine();
+			stale = header == null || !header.equals(stamp);
+			if (!stale) {
+				int count = 0;
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (!apply(assets, line)) {
+						throw new IOException("Invalid journal record after " + count + " records: " + line);
+					}
+					count++;
+				}
+				System.out.println("Replayed " + count + " journal records.");
+			}
+		}
+		if (stale) {
+			System.err.println("Discarding journal that does not match the CSV file");
+			Files.delete(journalPath);
+			return;
+		}
+		size = Files.size(journalPath);
+	}
+
+	/**
+	 * Applies a single journal record to the asset list.
+	 *
+	 * @param assets The asset list to update.
+	 * @param record The record to apply.
+	 * @return true if the record was valid and applied, false otherwise.
+	 */
+	private static boolean apply(List<AssetInfo> assets, String record) {
+		try {
+			if (record.startsWith("A,")) {
+				AssetInfo asset = AssetCSV.parseAsset(record.substring(2));
+				if (asset == null) {
+					return false;
+				}
+				assets.add(asset);
+				return true;
+			}
+			String[] parts = record.split(",", 3);
+			int position = Integer.parseInt(parts[1]);
+			if (record.startsWith("U,") && parts.length == 3) {
+				AssetInfo asset = AssetCSV.parseAsset(parts[2]);
+				if (asset == null) {
+					return false;
+				}
+				assets.set(position, asset);
+				return true;
+			}
+			if (record.startsWith("D,")) {
+				assets.remove(position);
+				return true;
+			}
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+			// Falls through to report the record as invalid
+		}
+		return false;
+	}
+
+	/**
+	 * Records an asset appended to the end of the list.
+	 *
+	 * @param asset The added asset.
+	 * @throws IOException If the record cannot be written.
+	 */
+	void recordAdd(AssetInfo asset) throws IOException {
+		append("A," + AssetCSV.formatAsset(asset));
+	}
+
+	/**
+	 * Records an asset replaced at a position.
+	 *
+	 * @param position The position of the replaced asset.
+	 * @param asset The asset stored at the position.
+	 * @throws IOException If the record cannot be written.
+	 */
+	void recordUpdate(int position, AssetInfo asset) throws IOException {
+		append("U," + position + "," + AssetCSV.formatAsset(asset));
+	}
+
+	/**
+	 * Records an asset removed from a position.
+	 *
+	 * @param position The position of the removed asset.
+	 * @throws IOException If the record cannot be written.
+	 */
+	void recordRemove(int position) throws IOException {
+		append("D," + position);
+	}
+
+	/**
+	 * Returns the number of bytes currently held by the journal.
+	 *
+	 * @return The size of the journal.
+	 */
+	long size() {
+		return size;
+	}
+
+	/**
+	 * Marks the start of a compaction. Records written from now on are also kept in
+	 * memory so they can be carried over to the journal of the new CSV file.
+	 */
+	void beginCompaction() {
+		pending = new ArrayList<>();
+	}
+
+	/**
+	 * Abandons a compaction that failed. The journal keeps all of its records.
+	 */
+	void abortCompaction() {
+		pending = null;
+	}
+
+	/**
+	 * Writes the journal of the new CSV file, holding only the records written since
+	 * the compaction started, before that file replaces the old one. Moving a file
+	 * keeps its size and modification time, so the header already matches the CSV
+	 * file once it is in place. Without such records the new CSV file needs no journal.
+	 *
+	 * @param newBase The new CSV file, complete but not yet moved into place.
+	 * @throws IOException If the new journal cannot be written.
+	 */
+	void prepareCompaction(Path newBase) throws IOException {
+		if (pending.isEmpty()) {
+			Files.deleteIfExists(nextPath);
+			return;
+		}
+		try (FileChannel next = FileChannel.open(nextPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				BufferedWriter writer = new BufferedWriter(
+						new OutputStreamWriter(Channels.newOutputStream(next), StandardCharsets.UTF_8))) {
+			writer.write(baseStamp(newBase));
+			writer.newLine();
+			for (String record : pending) {
+				writer.write(record);
+				writer.newLine();
+			}
+			writer.flush();
+			next.force(true);
+		}
+	}
+
+	/**
+	 * Replaces the journal with the one written by {@link #prepareCompaction(Path)},
+	 * once the new CSV file is in place.
+	 *
+	 * @throws IOException If the new journal cannot be moved into place.
+	 */
+	void finishCompaction() throws IOException {
+		pending = null;
+		close();
+		if (Files.exists(nextPath)) {
+			moveIntoPlace(nextPath, journalPath);
+			size = Files.size(journalPath);
+		} else {
+			Files.deleteIfExists(journalPath);
+			size = 0;
+		}
+	}
+
+	/**
+	 * Closes the journal writer. A later record reopens it.
+	 *
+	 * @throws IOException If the writer cannot be closed.
+	 */
+	void close() throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+			channel = null;
+		}
+	}
+
+	/**
+	 * Appends a record to the journal, writing the header first if the journal is new.
+	 *
+	 * @param record The record to append.
+	 * @throws IOException If the record cannot be written.
+	 */
+	private void append(String record) throws IOException {
+		if (out == null) {
+			if (!Files.exists(basePath)) {
+				Files.createFile(basePath); // The header needs a CSV file to refer to
+			}
+			boolean fresh = !Files.exists(journalPath) || Files.size(journalPath) == 0;
+			channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+			if (fresh) {
+				writeLine(baseStamp(basePath));
+			}
+		}
+		writeLine(record);
+		out.flush();
+		channel.force(false); // The change only counts as saved once it is on the disk
+		if (pending != null) {
+			pending.add(record);
+		}
+	}
+
+	/**
+	 * Writes one line to the journal and tracks its size.
+	 *
+	 * @param line The line to write.
+	 * @throws IOException If the line cannot be written.
+	 */
+	private void writeLine(String line) throws IOException {
+		out.write(line);
+		out.newLine();
+		size += line.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+	}
+
+	/**
+	 * Builds the header identifying a version of the CSV file.
+	 *
+	 * @param base The CSV file.
+	 * @return The header line.
+	 * @throws IOException If the CSV file attributes cannot be read.
+	 */
+	private static String baseStamp(Path base) throws IOException {
+		if (!Files.exists(base)) {
+			return HEADER + ",-1,-1";
+		}
+		return HEADER + "," + Files.size(base) + "," + Files.getLastModifiedTime(base).toMillis();
+	}
+
+	/**
+	 * Reads the header of a journal file.
+	 *
+	 * @param journal The journal file.
+	 * @return The header line, or null if the file is empty.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static String readHeader(Path journal) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+			return reader.readLine();
+		}
+	}
+
+	/**
+	 * Moves a journal file over another in one step where the file system allows it.
+	 *
+	 * @param source The file to move.
+	 * @param target The file to replace.
+	 * @throws IOException If the file cannot be moved.
+	 */
+	private static void moveIntoPlace(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
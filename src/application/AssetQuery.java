@@ -0,0 +1,155 @@
+package application;
+
+import java.time.LocalDate;
+
+/**
+ * Class representing a combined filter over assets. Every criterion that is set
+ * must hold for an asset to match; criteria left unset (null) match any asset.
+ * Queries are answered by {@link AssetRepository#find(AssetQuery)}.
+ */
+public class AssetQuery {
+	/**
+	 * States of an asset's warranty relative to the query date.
+	 */
+	public enum WarrantyState {
+		EXPIRED, // The warranty expired before the query date
+		ACTIVE, // The warranty expires on or after the query date
+		NONE // The asset has no warranty expiration date
+	}
+
+	private String name; // Text the name contains, ignoring case
+	private String category; // Exact category
+	private String location; // Exact location name
+	private LocalDate purchasedFrom; // First purchase date, included
+	private LocalDate purchasedTo; // Last purchase date, included
+	private Long minValueCents; // Lowest purchased value in cents, included
+	private Long maxValueCents; // Highest purchased value in cents, included
+	private WarrantyState warranty; // Required warranty state
+	private final LocalDate asOf = LocalDate.now(); // Date the warranty state is judged on, the day the query was made
+
+	// Getter for name
+	public String getName() {
+		return name;
+	}
+
+	// Setter for name; blank text is treated as unset
+	public void setName(String name) {
+		this.name = (name == null || name.trim().isEmpty()) ? null : name;
+	}
+
+	// Getter for category
+	public String getCategory() {
+		return category;
+	}
+
+	// Setter for category; keeps the shared instance so matching compares references
+	public void setCategory(String category) {
+		this.category = StringDictionary.CATEGORIES.intern(category);
+	}
+
+	// Getter for location
+	public String getLocation() {
+		return location;
+	}
+
+	// Setter for location; keeps the shared instance so matching compares references
+	public void setLocation(String location) {
+		this.location = StringDictionary.LOCATIONS.intern(location);
+	}
+
+	// Setter for the first purchase date
+	public void setPurchasedFrom(LocalDate purchasedFrom) {
+		this.purchasedFrom = purchasedFrom;
+	}
+
+	// Setter for the last purchase date
+	public void setPurchasedTo(LocalDate purchasedTo) {
+		this.purchasedTo = purchasedTo;
+	}
+
+	// Getter for the lowest purchased value in cents
+	public Long getMinValueCents() {
+		return minValueCents;
+	}
+
+	// Setter for the lowest purchased value in cents
+	public void setMinValueCents(Long minValueCents) {
+		this.minValueCents = minValueCents;
+	}
+
+	// Getter for the highest purchased value in cents
+	public Long getMaxValueCents() {
+		return maxValueCents;
+	}
+
+	// Setter for the highest purchased value in cents
+	public void setMaxValueCents(Long maxValueCents) {
+		this.maxValueCents = maxValueCents;
+	}
+
+	// Getter for the warranty state
+	public WarrantyState getWarranty() {
+		return warranty;
+	}
+
+	// Setter for the warranty state
+	public void setWarranty(WarrantyState warranty) {
+		this.warranty = warranty;
+	}
+
+	// Getter for the date the warranty state is judged on
+	public LocalDate getAsOf() {
+		return asOf;
+	}
+
+	/**
+	 * Checks every criterion that is set against an asset.
+	 *
+	 * @param asset The asset to check.
+	 * @return true if the asset matches the query.
+	 */
+	public boolean matches(AssetInfo asset) {
+		if (name != null && (asset.getName() == null
+				|| !TrigramIndex.matches(TrigramIndex.normalize(asset.getName()), TrigramIndex.normalize(name)))) {
+			return false;
+		}
+		// Assets hold the shared instances of their category and location, so a
+		// value that equals them is the same reference
+		if (category != null && category != asset.getCategory()) {
+			return false;
+		}
+		if (location != null && location != asset.getLocation()) {
+			return false;
+		}
+		if (purchasedFrom != null || purchasedTo != null) {
+			LocalDate purchaseDate = asset.getPurchaseLocalDate();
+			if (purchaseDate == null || (purchasedFrom != null && purchaseDate.isBefore(purchasedFrom))
+					|| (purchasedTo != null && purchaseDate.isAfter(purchasedTo))) {
+				return false;
+			}
+		}
+		if (minValueCents != null || maxValueCents != null) {
+			long value = asset.getValueCents();
+			if (!asset.hasValue() || (minValueCents != null && value < minValueCents)
+					|| (maxValueCents != null && value > maxValueCents)) {
+				return false;
+			}
+		}
+		return warranty == null || warranty == warrantyStateOf(asset, asOf);
+	}
+
+	/**
+	 * Determines the state of an asset's warranty on a date.
+	 *
+	 * @param asset The asset.
+	 * @param date The date to judge the warranty on.
+	 * @return EXPIRED if it expired before the date, ACTIVE if not, NONE without an expiration date.
+	 */
+	static WarrantyState warrantyStateOf(AssetInfo asset, LocalDate date) {
+		LocalDate expiration = asset.getWarrantyExpirationLocalDate();
+		if (expiration == null) {
+			return WarrantyState.NONE;
+		}
+		return expiration.isBefore(date) ? WarrantyState.EXPIRED : WarrantyState.ACTIVE;
+	}
+}
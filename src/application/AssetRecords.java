@@ -0,0 +1,151 @@
+package application;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The AssetRecords interface is implemented by the storage behind an
+ * {@link AssetStore}. Each slot holds the encoded fields of one asset: dictionary
+ * codes, epoch days, cents and the name and description text. The store decides
+ * what goes into a slot; the records only decide where the bytes live.
+ */
+interface AssetRecords {
+	int NO_TEXT = -1; // Length of a missing name or description
+
+	/**
+	 * Writes the fields of a slot. Writing the slot after the last one appends it;
+	 * writing an existing slot replaces its fields.
+	 *
+	 * @param slot The slot, at most the number of slots written so far.
+	 * @param category The category code.
+	 * @param location The location code.
+	 * @param purchaseDay The purchase date as an epoch day.
+	 * @param warrantyDay The warranty expiration as an epoch day.
+	 * @param cents The purchased value in cents.
+	 * @param valueFormat How the purchased value text is rebuilt from the cents.
+	 * @param name The name, or null.
+	 * @param description The description, or null.
+	 */
+	void write(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents, byte valueFormat,
+			String name, String description);
+
+	/**
+	 * Writes the fields of a slot like {@link #write(int, int, int, int, int, long, byte, String, String)},
+	 * copying the name and description as UTF-8 bytes straight from a buffer
+	 * instead of encoding Strings.
+	 *
+	 * @param slot The slot, at most the number of slots written so far.
+	 * @param category The category code.
+	 * @param location The location code.
+	 * @param purchaseDay The purchase date as an epoch day.
+	 * @param warrantyDay The warranty expiration as an epoch day.
+	 * @param cents The purchased value in cents.
+	 * @param valueFormat How the purchased value text is rebuilt from the cents.
+	 * @param source The buffer holding the name and description.
+	 * @param nameStart The offset of the name in the buffer.
+	 * @param nameLength The length of the name in bytes.
+	 * @param descriptionStart The offset of the description in the buffer.
+	 * @param descriptionLength The length of the description in bytes.
+	 */
+	void write(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents, byte valueFormat,
+			ByteBuffer source, int nameStart, int nameLength, int descriptionStart, int descriptionLength);
+
+	/**
+	 * Reads the category code of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The category code.
+	 */
+	int categoryCode(int slot);
+
+	/**
+	 * Reads the location code of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The location code.
+	 */
+	int locationCode(int slot);
+
+	/**
+	 * Reads the purchase date of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The purchase date as an epoch day.
+	 */
+	int purchaseDay(int slot);
+
+	/**
+	 * Reads the warranty expiration of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The warranty expiration as an epoch day.
+	 */
+	int warrantyDay(int slot);
+
+	/**
+	 * Reads the purchased value of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The purchased value in cents.
+	 */
+	long valueCents(int slot);
+
+	/**
+	 * Reads the purchased value format of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return How the purchased value text is rebuilt from the cents.
+	 */
+	byte valueFormat(int slot);
+
+	/**
+	 * Decodes the name of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The name, or null.
+	 */
+	String name(int slot);
+
+	/**
+	 * Decodes the description of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The description, or null.
+	 */
+	String description(int slot);
+
+	/**
+	 * Gives up the text of the slot of a removed asset. The fields stay readable for
+	 * views already handed out until the text is next compacted, after which the
+	 * name and description of the slot read as missing.
+	 *
+	 * @param slot The slot.
+	 */
+	void release(int slot);
+
+	/**
+	 * Drops every slot and its text, so the next slot written is slot 0 again.
+	 */
+	void clear();
+
+	/**
+	 * Creates an independent copy of the first slots, kept in the same kind of memory.
+	 *
+	 * @param slots The number of slots to copy.
+	 * @return The copy.
+	 */
+	AssetRecords copy(int slots);
+
+	/**
+	 * Estimates the memory taken on the Java heap.
+	 *
+	 * @return The size in bytes.
+	 */
+	long heapBytes();
+
+	/**
+	 * Returns the memory taken outside the Java heap.
+	 *
+	 * @return The size in bytes.
+	 */
+	long offHeapBytes();
+}
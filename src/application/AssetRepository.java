@@ -0,0 +1,967 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * The AssetRepository class holds the assets of the application in memory.
+ * The CSV file is parsed once, every controller shares a read-only view of the
+ * loaded assets, and additions, edits and deletions are applied in memory and
+ * written through to disk. The assets are kept in a columnar {@link AssetStore};
+ * the lists handed out hold views into it. Starting the application with
+ * -Dtrackwise.offHeap=true keeps the asset records outside the Java heap, for
+ * inventories large enough that garbage collection pauses become noticeable.
+ *
+ * Changes are written as small records to an {@link AssetJournal} next to the CSV
+ * file, so each one costs a constant amount of disk I/O however many assets are
+ * tracked. Once the journal grows past {@link #COMPACT_THRESHOLD_BYTES} a
+ * background thread folds it into a new CSV file. If the CSV file or the journal
+ * cannot be read completely, the assets that were read are shown but changes are
+ * refused, so neither file is overwritten with a partial list.
+ *
+ * Every change is also reported to the listeners added with
+ * {@link #addChangeListener(AssetChanges.Listener)}, so the screens showing assets
+ * follow it without looking them up again.
+ *
+ * The repository is safe to use from several threads. Lookups hold the read lock
+ * of a {@link ReentrantReadWriteLock} while they walk the indexes and copy the ids of the
+ * matching assets, so their results never change afterwards; the rows read the
+ * stored fields when asked for, on the JavaFX Application Thread that makes the
+ * changes. A change holds the write lock only while it updates the assets and
+ * indexes, and writes its journal record after letting readers back in.
+ */
+public class AssetRepository {
+	static final String CSV_FILE_PATH = "assets.csv"; // Path to the CSV file containing asset information
+	static final long COMPACT_THRESHOLD_BYTES = 1L << 20; // Journal size that triggers a compaction
+	static final String OFF_HEAP_PROPERTY = "trackwise.offHeap"; // System property selecting off-heap records
+	static final String STATS_PROPERTY = "trackwise.stats"; // System property printing memory statistics on loading
+	private static CompletableFuture<AssetRepository> instance; // Load of the process-wide repository, started on first use
+
+	private final Path path; // File the assets are loaded from and written to
+	private final AssetStore assets; // Loaded assets in file order, stored by internal id
+	private final List<AssetInfo> view; // Read-only view handed to controllers
+	private final BitmapIndex categoryIndex = new BitmapIndex(AssetInfo::getCategory); // Category to asset ids
+	private final BitmapIndex locationIndex = new BitmapIndex(AssetInfo::getLocation); // Location to asset ids
+	private final WarrantyIndex warrantyIndex = new WarrantyIndex(); // Assets ordered by warranty expiration
+	private final ValueIndex valueIndex = new ValueIndex(); // Assets ordered by purchased value
+	private final ValueTotals categoryTotals = new ValueTotals(AssetInfo::getCategory); // Purchased value per category
+	private final ValueTotals locationTotals = new ValueTotals(AssetInfo::getLocation); // Purchased value per location
+	private BitmapIndex warrantyStateIndex; // Warranty state on warrantyStateDate to asset ids
+	private volatile LocalDate warrantyStateDate; // Date the warranty states are judged on
+	private volatile TrigramIndex nameIndex; // Name trigrams and word prefixes to asset ids, built on the first name search
+	private volatile FuzzyNameIndex fuzzyNameIndex; // Words of the names in a BK-tree, built on the first fuzzy search
+	private final List<AssetIndex> indexes = new ArrayList<>(); // Every index kept up to date on changes
+	private final AssetChanges changes = new AssetChanges(); // Changes handed to the screens once per frame
+	private final AssetJournal journal; // Change log replayed over the CSV file
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "asset-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private boolean compacting; // Whether a compaction is queued or running, guarded by journalLock
+	private boolean readOnly; // Whether loading failed part-way, so changes must not reach the files
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Guards the assets and indexes; readers wait behind a queued change
+	private final ReentrantLock journalLock = new ReentrantLock(); // Keeps journal records in the order of the changes
+
+	/**
+	 * Creates a repository backed by the given CSV file and loads its assets into
+	 * records on the Java heap.
+	 *
+	 * @param path The CSV file holding the assets.
+	 */
+	AssetRepository(Path path) {
+		this(path, false);
+	}
+
+	/**
+	 * Creates a repository backed by the given CSV file and loads its assets.
+	 *
+	 * @param path The CSV file holding the assets.
+	 * @param offHeap Whether to keep the asset records outside the Java heap.
+	 */
+	AssetRepository(Path path, boolean offHeap) {
+		this.path = path;
+		this.assets = new AssetStore(offHeap ? new OffHeapAssetRecords() : new HeapAssetRecords());
+		this.view = Collections.unmodifiableList(assets);
+		this.journal = new AssetJournal(path);
+		indexes.add(categoryIndex);
+		indexes.add(locationIndex);
+		indexes.add(warrantyIndex);
+		indexes.add(valueIndex);
+		indexes.add(categoryTotals);
+		indexes.add(locationTotals);
+		load();
+		for (AssetInfo asset : assets) {
+			register(asset);
+		}
+		indexes.add(changes); // Follows the indexes, and only the changes made after loading
+		valueIndex.sort();
+		warrantyStates(LocalDate.now());
+		if (Boolean.getBoolean(STATS_PROPERTY)) {
+			System.out.println(String.format("Asset store memory: %,d bytes on the heap, %,d bytes off the heap",
+					assets.heapBytes(), assets.offHeapBytes()));
+			System.out.println(describeIndexMemory());
+		}
+	}
+
+	/**
+	 * Returns the process-wide repository, loading assets.csv the first time it is called.
+	 *
+	 * The load runs on a thread of its own, which callers wait for without being
+	 * interruptible. A screen that cancels its background work while waiting then
+	 * leaves the load to finish for the next caller; interrupting the read itself
+	 * would close the file under it and leave the repository empty.
+	 *
+	 * @return The shared AssetRepository.
+	 */
+	public static AssetRepository getInstance() {
+		try {
+			return whenLoaded().join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+	}
+
+	/**
+	 * Returns the load of the process-wide repository without waiting for it,
+	 * starting it on a thread of its own the first time it is called. Code on the
+	 * JavaFX Application Thread chains onto it instead of calling {@link #getInstance()}.
+	 * A load that fails is forgotten, so the next caller tries again.
+	 *
+	 * @return The shared load, completed once assets.csv is read.
+	 */
+	static CompletableFuture<AssetRepository> whenLoaded() {
+		CompletableFuture<AssetRepository> load;
+		synchronized (AssetRepository.class) {
+			load = instance;
+			if (load == null) {
+				load = CompletableFuture.supplyAsync(
+						() -> new AssetRepository(Paths.get(CSV_FILE_PATH), Boolean.getBoolean(OFF_HEAP_PROPERTY)),
+						work -> {
+							Thread thread = new Thread(work, "asset-repository-load");
+							thread.setDaemon(true);
+							thread.start();
+						});
+				instance = load;
+			}
+		}
+		CompletableFuture<AssetRepository> started = load;
+		return load.whenComplete((repository, failure) -> {
+			if (failure != null) {
+				synchronized (AssetRepository.class) {
+					if (instance == started) {
+						instance = null; // The next caller tries again
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Closes the process-wide repository if it was ever loaded, waiting for a load
+	 * still running.
+	 */
+	public static void shutdown() {
+		CompletableFuture<AssetRepository> load;
+		synchronized (AssetRepository.class) {
+			load = instance;
+		}
+		if (load != null) {
+			try {
+				load.join().close();
+			} catch (CompletionException e) {
+				System.err.println("Error loading assets: " + e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Adds a listener for the additions, edits and deletions made through this
+	 * repository. It is called on the JavaFX Application Thread, at most once per
+	 * frame, with the changes made since its last call. Adding a listener again has
+	 * no effect.
+	 *
+	 * @param listener The listener.
+	 */
+	void addChangeListener(AssetChanges.Listener listener) {
+		changes.addListener(listener);
+	}
+
+	/**
+	 * Removes a listener added with {@link #addChangeListener(AssetChanges.Listener)}.
+	 *
+	 * @param listener The listener.
+	 */
+	void removeChangeListener(AssetChanges.Listener listener) {
+		changes.removeListener(listener);
+	}
+
+	/**
+	 * Returns a read-only view of all assets. The view reflects later changes made
+	 * through this repository.
+	 *
+	 * @return The list of assets.
+	 */
+	public List<AssetInfo> getAssets() {
+		return view;
+	}
+
+	/**
+	 * Returns the assets in a category, in the order they were loaded or added.
+	 * The lookup goes through an index, so it costs time in proportion to the result.
+	 *
+	 * @param category The category to look up.
+	 * @return The matching assets.
+	 */
+	public List<AssetInfo> findByCategory(String category) {
+		return read(() -> resolve(categoryIndex.get(category).toArray()));
+	}
+
+	/**
+	 * Returns the assets at a location, in the order they were loaded or added.
+	 * The lookup goes through an index, so it costs time in proportion to the result.
+	 *
+	 * @param location The location name to look up.
+	 * @return The matching assets.
+	 */
+	public List<AssetInfo> findByLocation(String location) {
+		return read(() -> resolve(locationIndex.get(location).toArray()));
+	}
+
+	/**
+	 * Returns the assets whose name contains a piece of text, ignoring case, in the
+	 * order they were loaded or added. Text of one or two characters matches names
+	 * with a word starting with it, and empty text matches every asset.
+	 *
+	 * @param text The text to look for.
+	 * @return The matching assets.
+	 */
+	public List<AssetInfo> findByName(String text) {
+		String query = TrigramIndex.normalize(text);
+		if (query.isEmpty()) {
+			return read(() -> assets.views(assets.ids()));
+		}
+		TrigramIndex names = nameIndex();
+		return read(() -> resolve(names.search(query, assets::view)));
+	}
+
+	/**
+	 * Returns the assets whose name nearly matches a piece of text, ignoring case.
+	 * Every word of the text must match a word of the name with at most
+	 * {@link FuzzyNameIndex#MAX_DISTANCE} typos, fewer for short words. Text
+	 * without words matches every asset.
+	 *
+	 * @param text The text to look for.
+	 * @return The matching assets, the closest matches first.
+	 */
+	public List<AssetInfo> findByNameFuzzy(String text) {
+		String query = TrigramIndex.normalize(text);
+		if (query.trim().isEmpty()) {
+			return read(() -> assets.views(assets.ids()));
+		}
+		FuzzyNameIndex words = fuzzyNameIndex();
+		return read(() -> resolve(words.search(query)));
+	}
+
+	/**
+	 * Returns the assets matching every criterion of a query, in the order they were
+	 * loaded or added. The query starts from whichever index promises the fewest
+	 * candidates and checks the full query against those candidates only; without
+	 * a usable index it checks every asset.
+	 *
+	 * @param query The criteria to match.
+	 * @return The matching assets.
+	 */
+	public List<AssetInfo> find(AssetQuery query) {
+		if (query.getWarranty() != null && query.getAsOf().equals(LocalDate.now())) {
+			warrantyStates(query.getAsOf());
+		}
+		if (query.getName() != null && !hasIndexedCriteria(query)) {
+			nameIndex(); // The name index is only built for a query no other index narrows down
+		}
+		return read(() -> {
+			int[] candidates = plan(query);
+			if (candidates == null) {
+				candidates = assets.ids();
+			}
+			int matches = 0;
+			for (int id : candidates) {
+				if (query.matches(assets.view(id))) {
+					candidates[matches++] = id; // Matches are packed into the front of the candidates
+				}
+			}
+			return resolve(Arrays.copyOf(candidates, matches));
+		});
+	}
+
+	/**
+	 * Returns the most valuable assets.
+	 *
+	 * @param limit The maximum number of assets to return.
+	 * @return Up to limit assets, the highest purchased value first.
+	 */
+	public List<AssetInfo> findMostValuable(int limit) {
+		return read(() -> resolve(valueIndex.top(limit)));
+	}
+
+	/**
+	 * Returns the total purchased value of a category, kept up to date on every change.
+	 *
+	 * @param category The category.
+	 * @return The total in cents; assets without a numeric value are left out.
+	 */
+	public long getCategoryTotalCents(String category) {
+		return read(() -> categoryTotals.total(category));
+	}
+
+	/**
+	 * Returns the total purchased value at a location, kept up to date on every change.
+	 *
+	 * @param location The location name.
+	 * @return The total in cents; assets without a numeric value are left out.
+	 */
+	public long getLocationTotalCents(String location) {
+		return read(() -> locationTotals.total(location));
+	}
+
+	/**
+	 * Returns the number of assets in a category whose purchased value is missing or
+	 * not a number.
+	 *
+	 * @param category The category.
+	 * @return The number of assets left out of the category total.
+	 */
+	public int countWithoutValueInCategory(String category) {
+		return read(() -> categoryTotals.countWithoutValue(category));
+	}
+
+	/**
+	 * Returns the number of assets at a location whose purchased value is missing or
+	 * not a number.
+	 *
+	 * @param location The location name.
+	 * @return The number of assets left out of the location total.
+	 */
+	public int countWithoutValueAtLocation(String location) {
+		return read(() -> locationTotals.countWithoutValue(location));
+	}
+
+	/**
+	 * Counts the assets in a combination of category, location and warranty state
+	 * by intersecting their bitmaps, without looking at any asset. It never builds
+	 * an index, so it is quick enough for the JavaFX Application Thread: once the
+	 * date has changed since the warranty states were built, they are rebuilt on the
+	 * background thread, and until then the warranty of each asset in the category
+	 * and location is checked instead.
+	 *
+	 * @param category The category, or null for any.
+	 * @param location The location name, or null for any.
+	 * @param warranty The warranty state today, or null for any.
+	 * @return The number of assets in the combination.
+	 */
+	public int count(String category, String location, AssetQuery.WarrantyState warranty) {
+		LocalDate today = LocalDate.now();
+		if (warranty != null && !today.equals(warrantyStateDate) && !compactor.isShutdown()) {
+			compactor.execute(() -> warrantyStates(today));
+		}
+		return read(() -> count(category, location, warranty, today));
+	}
+
+	/**
+	 * Counts the assets in a combination of category, location and warranty state.
+	 *
+	 * @param category The category, or null for any.
+	 * @param location The location name, or null for any.
+	 * @param warranty The warranty state, or null for any.
+	 * @param today The date the warranty state is judged on.
+	 * @return The number of assets in the combination.
+	 */
+	private int count(String category, String location, AssetQuery.WarrantyState warranty, LocalDate today) {
+		List<IdBitmap> bitmaps = new ArrayList<>();
+		if (category != null) {
+			bitmaps.add(categoryIndex.get(category));
+		}
+		if (location != null) {
+			bitmaps.add(locationIndex.get(location));
+		}
+		if (warranty != null && !today.equals(warrantyStateDate)) {
+			int[] candidates = bitmaps.isEmpty() ? assets.ids()
+					: bitmaps.size() == 1 ? bitmaps.get(0).toArray() : IdBitmap.and(bitmaps.get(0), bitmaps.get(1)).toArray();
+			int count = 0;
+			for (int id : candidates) {
+				if (AssetQuery.warrantyStateOf(assets.view(id), today) == warranty) {
+					count++;
+				}
+			}
+			return count;
+		}
+		if (warranty != null) {
+			bitmaps.add(warrantyStateIndex.get(warranty.name()));
+		}
+		bitmaps.sort(Comparator.comparingInt(IdBitmap::size));
+		switch (bitmaps.size()) {
+		case 0:
+			return assets.size();
+		case 1:
+			return bitmaps.get(0).size();
+		case 2:
+			return IdBitmap.andCount(bitmaps.get(0), bitmaps.get(1));
+		default:
+			return IdBitmap.andCount(IdBitmap.and(bitmaps.get(0), bitmaps.get(1)), bitmaps.get(2));
+		}
+	}
+
+	/**
+	 * Describes the heap memory taken by the bitmap index of each indexed column. It is
+	 * printed on loading when the application is started with -Dtrackwise.stats=true.
+	 *
+	 * @return One line per column.
+	 */
+	public String describeIndexMemory() {
+		return read(() -> "Index memory for " + assets.size() + " assets:"
+				+ describe("category", categoryIndex)
+				+ describe("location", locationIndex)
+				+ describe("warranty state", warrantyStateIndex));
+	}
+
+	/**
+	 * Counts the warranties that expired before a date and those expiring within
+	 * {@link WarrantyCheck#SOON_DAYS} days of it through the warranty index.
+	 *
+	 * @param today The date to compare against.
+	 * @return The counts.
+	 */
+	WarrantyCheck checkWarranties(LocalDate today) {
+		return read(() -> new WarrantyCheck(warrantyIndex.countExpiredAsOf(today),
+				warrantyIndex.countExpiringBetween(today, today.plusDays(WarrantyCheck.SOON_DAYS))));
+	}
+
+	/**
+	 * Describes the memory of one bitmap index.
+	 *
+	 * @param column The name of the indexed column.
+	 * @param index The index.
+	 * @return A line for {@link #describeIndexMemory()}.
+	 */
+	private String describe(String column, BitmapIndex index) {
+		long bytes = index.memoryBytes();
+		return String.format("%n  %s: %,d bytes for %d values (%.2f bytes per asset)", column, bytes,
+				index.valueCount(), assets.isEmpty() ? 0.0 : (double) bytes / assets.size());
+	}
+
+	/**
+	 * Picks the cheapest way into a query. The category, location and warranty state
+	 * criteria are combined by intersecting their bitmaps; the value range and name
+	 * criteria use their own indexes when those promise fewer candidates. Warranty states on a
+	 * date the warranty state index was not built for are checked per candidate instead,
+	 * as are names while the name index is not built.
+	 *
+	 * @param query The criteria to match.
+	 * @return The candidate ids in ascending order, or null to check every asset.
+	 */
+	private int[] plan(AssetQuery query) {
+		IdBitmap filter = null; // Intersection of the bitmap criteria
+		if (query.getCategory() != null) {
+			filter = intersect(filter, categoryIndex.get(query.getCategory()));
+		}
+		if (query.getLocation() != null) {
+			filter = intersect(filter, locationIndex.get(query.getLocation()));
+		}
+		LocalDate asOf = query.getAsOf();
+		BitmapIndex states = warrantyStateIndex;
+		if (query.getWarranty() != null && asOf.equals(warrantyStateDate)) {
+			filter = intersect(filter, states.get(query.getWarranty().name()));
+		}
+		String driver = filter != null ? "bitmap" : null; // Index the candidates are read from
+		int estimate = filter != null ? filter.size() : assets.size();
+
+		long minCents = query.getMinValueCents() != null ? query.getMinValueCents() : Long.MIN_VALUE + 1;
+		long maxCents = query.getMaxValueCents() != null ? query.getMaxValueCents() : Long.MAX_VALUE;
+		if ((query.getMinValueCents() != null || query.getMaxValueCents() != null)
+				&& valueIndex.countBetween(minCents, maxCents) < estimate) {
+			driver = "value";
+			estimate = valueIndex.countBetween(minCents, maxCents);
+		}
+
+		TrigramIndex names = nameIndex;
+		if (query.getName() != null && names != null) {
+			int count = names.estimate(TrigramIndex.normalize(query.getName()));
+			if (count < estimate) {
+				driver = "name";
+				estimate = count;
+			}
+		}
+
+		if (driver == null) {
+			return null;
+		}
+		switch (driver) {
+		case "bitmap":
+			return filter.toArray();
+		case "value":
+			int[] ids = valueIndex.between(minCents, maxCents);
+			Arrays.sort(ids); // The index lists them by value
+			return ids;
+		default:
+			return names.search(TrigramIndex.normalize(query.getName()), assets::view);
+		}
+	}
+
+	/**
+	 * Tells whether a query has a criterion answered by an index other than the name index.
+	 *
+	 * @param query The criteria to match.
+	 * @return true if a category, location, value range or warranty state on today's
+	 *         date narrows the query down.
+	 */
+	private boolean hasIndexedCriteria(AssetQuery query) {
+		return query.getCategory() != null || query.getLocation() != null
+				|| query.getMinValueCents() != null || query.getMaxValueCents() != null
+				|| (query.getWarranty() != null && query.getAsOf().equals(warrantyStateDate));
+	}
+
+	/**
+	 * Intersects a bitmap criterion with those already applied.
+	 *
+	 * @param filter The intersection so far, or null if no criterion was applied.
+	 * @param ids The ids matching the next criterion.
+	 * @return The new intersection.
+	 */
+	private static IdBitmap intersect(IdBitmap filter, IdBitmap ids) {
+		return filter == null ? ids : IdBitmap.and(filter, ids);
+	}
+
+	/**
+	 * Returns the warranty state index for a date, rebuilding it when the states are
+	 * asked for on another date than before, as happens once a day.
+	 *
+	 * @param date The date to judge warranties on.
+	 * @return The index from warranty state name to asset ids.
+	 */
+	private BitmapIndex warrantyStates(LocalDate date) {
+		if (!date.equals(warrantyStateDate)) {
+			lock.writeLock().lock();
+			try {
+				if (!date.equals(warrantyStateDate)) {
+					indexes.remove(warrantyStateIndex);
+					warrantyStateIndex = build(new BitmapIndex(asset -> AssetQuery.warrantyStateOf(asset, date).name()));
+					warrantyStateDate = date;
+				}
+				return warrantyStateIndex;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		return read(() -> warrantyStateIndex);
+	}
+
+	/**
+	 * Returns the name index, building it on first use.
+	 *
+	 * @return The name index.
+	 */
+	private TrigramIndex nameIndex() {
+		TrigramIndex index = nameIndex;
+		if (index == null) {
+			lock.writeLock().lock();
+			try {
+				if (nameIndex == null) {
+					nameIndex = build(new TrigramIndex());
+				}
+				index = nameIndex;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the fuzzy name index, building it on first use.
+	 *
+	 * @return The fuzzy name index.
+	 */
+	private FuzzyNameIndex fuzzyNameIndex() {
+		FuzzyNameIndex index = fuzzyNameIndex;
+		if (index == null) {
+			lock.writeLock().lock();
+			try {
+				if (fuzzyNameIndex == null) {
+					fuzzyNameIndex = build(new FuzzyNameIndex());
+				}
+				index = fuzzyNameIndex;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the assets whose warranty expired before a date, the earliest expiration first.
+	 *
+	 * @param date The date to compare against, usually today.
+	 * @return The matching assets.
+	 */
+	public List<AssetInfo> findExpiredAsOf(LocalDate date) {
+		return read(() -> resolve(warrantyIndex.expiredAsOf(date)));
+	}
+
+	/**
+	 * Returns the assets whose warranty expires between two dates, both included,
+	 * the earliest expiration first.
+	 *
+	 * @param from The first date of the range.
+	 * @param to The last date of the range.
+	 * @return The matching assets.
+	 */
+	public List<AssetInfo> findExpiringBetween(LocalDate from, LocalDate to) {
+		return read(() -> resolve(warrantyIndex.expiringBetween(from, to)));
+	}
+
+	/**
+	 * Adds a new asset and records it in the journal.
+	 *
+	 * @param asset The asset to add.
+	 * @return true if the asset was added, false if changes are refused because the
+	 *         assets could not be loaded completely.
+	 */
+	public boolean add(AssetInfo asset) {
+		if (readOnly) {
+			return false;
+		}
+		lock.writeLock().lock();
+		try {
+			assets.add(asset);
+			register(assets.get(assets.size() - 1));
+			valueIndex.sortIfLong();
+			journalLock.lock(); // Taken before the next change can be made, so the records keep their order
+		} finally {
+			lock.writeLock().unlock();
+		}
+		try {
+			try {
+				journal.recordAdd(asset);
+			} catch (IOException e) {
+				System.err.println("Error writing to journal: " + e.getMessage());
+			}
+			compactIfNeeded();
+		} finally {
+			journalLock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces an existing asset with its edited version and records the change in the journal.
+	 *
+	 * @param current The asset currently held by the repository.
+	 * @param updated The asset to store in its place.
+	 * @return true if the asset was found and replaced, false if it was not found or
+	 *         changes are refused because the assets could not be loaded completely.
+	 */
+	public boolean update(AssetInfo current, AssetInfo updated) {
+		if (readOnly) {
+			return false;
+		}
+		int index;
+		lock.writeLock().lock();
+		try {
+			index = assets.indexOf(current);
+			if (index < 0) {
+				return false;
+			}
+			AssetInfo stored = assets.get(index); // Reads the old fields until the store is written
+			updated.setId(stored.getId());
+			for (AssetIndex assetIndex : indexes) {
+				assetIndex.update(stored, updated);
+			}
+			assets.set(index, updated);
+			valueIndex.sortIfLong();
+			journalLock.lock();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		try {
+			try {
+				journal.recordUpdate(index, updated);
+			} catch (IOException e) {
+				System.err.println("Error writing to journal: " + e.getMessage());
+			}
+			compactIfNeeded();
+		} finally {
+			journalLock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Removes an asset and records a tombstone for it in the journal.
+	 *
+	 * @param asset The asset to remove.
+	 * @return true if the asset was found and removed, false if it was not found or
+	 *         changes are refused because the assets could not be loaded completely.
+	 */
+	public boolean remove(AssetInfo asset) {
+		if (readOnly) {
+			return false;
+		}
+		int index;
+		lock.writeLock().lock();
+		try {
+			index = assets.indexOf(asset);
+			if (index < 0) {
+				return false;
+			}
+			AssetInfo stored = assets.remove(index);
+			for (AssetIndex assetIndex : indexes) {
+				assetIndex.remove(stored);
+			}
+			journalLock.lock();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		try {
+			try {
+				journal.recordRemove(index);
+			} catch (IOException e) {
+				System.err.println("Error writing to journal: " + e.getMessage());
+			}
+			compactIfNeeded();
+		} finally {
+			journalLock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Folds any outstanding journal records into the CSV file and stops the background
+	 * compactor, leaving a complete assets.csv behind for other tools.
+	 */
+	public void close() {
+		compactor.shutdown();
+		try {
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		boolean outstanding;
+		journalLock.lock();
+		try {
+			outstanding = journal.size() > 0 && !readOnly;
+		} finally {
+			journalLock.unlock();
+		}
+		if (outstanding) {
+			compact(); // Takes the locks itself, in the order every change takes them
+		}
+		journalLock.lock();
+		try {
+			journal.close();
+		} catch (IOException e) {
+			System.err.println("Error closing journal: " + e.getMessage());
+		} finally {
+			journalLock.unlock();
+		}
+	}
+
+	/**
+	 * Reads every asset from the CSV file, or from its binary snapshot while that is
+	 * still current, and replays the journal over them. A missing file leaves the
+	 * repository empty; a file or journal that cannot be read makes it read-only.
+	 */
+	private void load() {
+		if (!Files.exists(path)) {
+			System.err.println("CSV file does not exist");
+		} else {
+			try {
+				long size = Files.size(path);
+				long modified = Files.getLastModifiedTime(path).toMillis();
+				if (!AssetSnapshot.read(path, assets)) {
+					MappedAssetReader.load(path, assets);
+					writeSnapshotLater(size, modified, assets.copy());
+				}
+			} catch (IOException e) {
+				System.err.println("Error reading CSV file, changes will not be saved: " + e);
+				assets.clear();
+				readOnly = true;
+				return; // The journal applies to the full file only
+			}
+		}
+		try {
+			journal.replay(assets);
+		} catch (IOException e) {
+			System.err.println("Error reading journal, changes will not be saved: " + e.getMessage());
+			readOnly = true;
+		}
+	}
+
+	/**
+	 * Writes the binary snapshot of the CSV file on the background thread.
+	 *
+	 * @param size The size of the CSV file holding the assets.
+	 * @param modified The last modified time of that CSV file.
+	 * @param base The assets held by that CSV file, not changed afterwards.
+	 */
+	private void writeSnapshotLater(long size, long modified, List<AssetInfo> base) {
+		compactor.execute(() -> writeSnapshot(size, modified, base));
+	}
+
+	/**
+	 * Writes the binary snapshot of the CSV file.
+	 *
+	 * @param size The size of the CSV file holding the assets.
+	 * @param modified The last modified time of that CSV file.
+	 * @param base The assets held by that CSV file.
+	 */
+	private void writeSnapshot(long size, long modified, List<AssetInfo> base) {
+		try {
+			AssetSnapshot.write(path, size, modified, base);
+		} catch (IOException e) {
+			System.err.println("Error writing asset snapshot: " + e.getMessage());
+			AssetSnapshot.delete(path);
+		}
+	}
+
+	/**
+	 * Adds a stored asset to every index.
+	 *
+	 * @param asset The asset to register, with the id of its slot in the store.
+	 */
+	private void register(AssetInfo asset) {
+		for (AssetIndex assetIndex : indexes) {
+			assetIndex.add(asset);
+		}
+	}
+
+	/**
+	 * Fills an index that is not needed at startup with every stored asset and keeps
+	 * it up to date from then on, so its cost is paid on first use.
+	 *
+	 * @param index The empty index.
+	 * @return The filled index.
+	 */
+	private <T extends AssetIndex> T build(T index) {
+		for (AssetInfo asset : assets) {
+			index.add(asset);
+		}
+		indexes.add(index);
+		return index;
+	}
+
+	/**
+	 * Runs a lookup holding the read lock. The indexes are hash tables, trees and
+	 * growing arrays that a change rewrites in place, so walking them while a change
+	 * runs could loop or fail in ways no later check would catch.
+	 *
+	 * @param reader The lookup, which must not modify anything.
+	 * @return The answer of the lookup.
+	 */
+	private <T> T read(Supplier<T> reader) {
+		lock.readLock().lock();
+		try {
+			return reader.get();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Looks up the assets for an array of ids. Called holding the read lock with
+	 * ids copied out of an index, so the list stays as it was when looked up
+	 * whatever changes are made to the index afterwards.
+	 *
+	 * @param ids The ids of stored assets, a copy the list takes over.
+	 * @return The assets in the order of the ids.
+	 */
+	private List<AssetInfo> resolve(int[] ids) {
+		return assets.views(ids);
+	}
+
+	/**
+	 * Queues a background compaction once the journal has grown past the threshold.
+	 */
+	private void compactIfNeeded() {
+		if (!readOnly && !compacting && journal.size() >= COMPACT_THRESHOLD_BYTES && !compactor.isShutdown()) {
+			compacting = true;
+			compactor.execute(this::compact);
+		}
+	}
+
+	/**
+	 * Writes the current assets to a new CSV file and starts an empty journal for it.
+	 * The rows are written from a snapshot without holding any lock, so changes made
+	 * meanwhile are only delayed while the new file is moved into place, and lookups
+	 * not at all.
+	 */
+	private void compact() {
+		List<AssetInfo> snapshot;
+		lock.readLock().lock();
+		try {
+			journalLock.lock(); // Waits for the record of a change already made
+			try {
+				snapshot = assets.copy();
+				journal.beginCompaction();
+			} finally {
+				journalLock.unlock();
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		Path temp = null;
+		try {
+			temp = AssetCSV.writeTempFile(path, snapshot);
+			long size;
+			long modified;
+			journalLock.lock();
+			try {
+				journal.prepareCompaction(temp);
+				AssetCSV.replaceFile(temp, path);
+				size = Files.size(path);
+				modified = Files.getLastModifiedTime(path).toMillis();
+				journal.finishCompaction();
+			} finally {
+				journalLock.unlock();
+			}
+			writeSnapshot(size, modified, snapshot);
+		} catch (IOException e) {
+			journalLock.lock();
+			try {
+				journal.abortCompaction();
+			} finally {
+				journalLock.unlock();
+			}
+			System.err.println("Error compacting journal: " + e.getMessage());
+		} finally {
+			journalLock.lock();
+			try {
+				compacting = false;
+			} finally {
+				journalLock.unlock();
+			}
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException e) {
+					System.err.println("Error removing temporary file: " + e.getMessage());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package application;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The AssetSnapshot class keeps a binary copy of assets.csv in a sidecar file so
+ * the assets can be loaded at startup with one sequential read instead of parsing
+ * text. The CSV file stays the interchange format; the snapshot is only used while
+ * it still describes the current CSV file, and is rebuilt whenever the CSV file is
+ * rewritten.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * int    magic "TWSN"
+ * int    format version
+ * long   size of assets.csv when the snapshot was taken
+ * long   last modified time of assets.csv when the snapshot was taken
+ * int    category count, then each category as a string
+ * int    location count, then each location as a string
+ * int    asset count, then for each asset:
+ *          string name, int category id, int location id,
+ *          int purchase date (epoch day), string description,
+ *          string purchased value, int warranty expiration date (epoch day)
+ * long   CRC32 of everything above
+ * </pre>
+ * Strings are an int byte length followed by UTF-8 bytes. A missing date is
+ * stored as {@link #NO_DATE}.
+ */
+final class AssetSnapshot {
+	static final String SUFFIX = ".snap"; // Appended to the CSV file name to name the snapshot
+	private static final int MAGIC = 0x54574E53; // "TWSN"
+	private static final int VERSION = 1;
+	private static final int NO_DATE = AssetStore.NO_DATE; // Epoch day stored for a missing date, as in the store
+
+	private AssetSnapshot() {
+		// Utility class, not instantiated
+	}
+
+	/**
+	 * Returns the snapshot file belonging to a CSV file.
+	 *
+	 * @param csvPath The CSV file.
+	 * @return The snapshot file.
+	 */
+	static Path pathFor(Path csvPath) {
+		return csvPath.resolveSibling(csvPath.getFileName() + SUFFIX);
+	}
+
+	/**
+	 * Reads the assets from the snapshot of a CSV file into a store. Dates and
+	 * dictionary ids are taken over as they are, and names and descriptions are
+	 * copied into the store as bytes without creating a String for them.
+	 *
+	 * @param csvPath The CSV file.
+	 * @param store The empty store to append the assets to, in file order.
+	 * @return true if the assets were read, false if there is no snapshot or it does
+	 *         not match the current CSV file; the store is then left empty.
+	 */
+	static boolean read(Path csvPath, AssetStore store) {
+		Path snapPath = pathFor(csvPath);
+		if (!Files.exists(snapPath) || !Files.exists(csvPath)) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(snapPath, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < 32 || size > Integer.MAX_VALUE) {
+				return false;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+					|| buffer.getLong() != Files.size(csvPath)
+					|| buffer.getLong() != Files.getLastModifiedTime(csvPath).toMillis()) {
+				return false; // Older format or taken from a different CSV file
+			}
+			ByteBuffer payload = buffer.duplicate();
+			payload.position(0).limit((int) size - 8);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if (buffer.getLong((int) size - 8) != crc.getValue()) {
+				System.err.println("Ignoring corrupt asset snapshot");
+				return false;
+			}
+
+			int[] categories = readCodes(buffer, StringDictionary.CATEGORIES);
+			int[] locations = readCodes(buffer, StringDictionary.LOCATIONS);
+			int count = buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				int nameLength = buffer.getInt();
+				int nameStart = skip(buffer, nameLength);
+				int category = categories[buffer.getInt()];
+				int location = locations[buffer.getInt()];
+				int purchaseDay = buffer.getInt();
+				int descriptionLength = buffer.getInt();
+				int descriptionStart = skip(buffer, descriptionLength);
+				String purchasedValue = readString(buffer);
+				int warrantyDay = buffer.getInt();
+				store.append(category, location, purchaseDay, warrantyDay, purchasedValue, buffer, nameStart, nameLength,
+						descriptionStart, descriptionLength);
+			}
+			return true;
+		} catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			System.err.println("Error reading asset snapshot: " + e);
+			store.clear();
+			return false;
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the assets held in a CSV file. The snapshot is written to a
+	 * temporary file and renamed into place.
+	 *
+	 * @param csvPath The CSV file the assets were read from or written to.
+	 * @param csvSize The size of the CSV file when it held exactly these assets.
+	 * @param csvModified The last modified time of the CSV file at that point, in milliseconds.
+	 * @param assets The assets stored in the CSV file, in file order.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	static void write(Path csvPath, long csvSize, long csvModified, List<AssetInfo> assets) throws IOException {
+
+		Map<String, Integer> categoryIds = new HashMap<>();
+		Map<String, Integer> locationIds = new HashMap<>();
+		List<String> categories = new ArrayList<>();
+		List<String> locations = new ArrayList<>();
+		for (AssetInfo asset : assets) {
+			if (categoryIds.putIfAbsent(asset.getCategory(), categories.size()) == null) {
+				categories.add(asset.getCategory());
+			}
+			if (locationIds.putIfAbsent(asset.getLocation(), locations.size()) == null) {
+				locations.add(asset.getLocation());
+			}
+		}
+
+		Path target = pathFor(csvPath);
+		Path temp = AssetCSV.tempFileFor(target);
+		try {
+			CRC32 crc = new CRC32();
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+							new CheckedOutputStream(Channels.newOutputStream(channel), crc),
+							1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(csvSize);
+				out.writeLong(csvModified);
+				writeDictionary(out, categories);
+				writeDictionary(out, locations);
+				out.writeInt(assets.size());
+				for (AssetInfo asset : assets) {
+					writeString(out, asset.getName());
+					out.writeInt(categoryIds.get(asset.getCategory()));
+					out.writeInt(locationIds.get(asset.getLocation()));
+					writeDate(out, asset.getPurchaseLocalDate());
+					writeString(out, asset.getDescription());
+					writeString(out, asset.getPurchasedValue());
+					writeDate(out, asset.getWarrantyExpirationLocalDate());
+				}
+				out.flush(); // Everything before the checksum has now passed through the CRC
+				out.writeLong(crc.getValue());
+				out.flush();
+				channel.force(true);
+			}
+			AssetCSV.replaceFile(temp, target);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Deletes the snapshot of a CSV file, if there is one.
+	 *
+	 * @param csvPath The CSV file.
+	 */
+	static void delete(Path csvPath) {
+		try {
+			Files.deleteIfExists(pathFor(csvPath));
+		} catch (IOException e) {
+			System.err.println("Error removing asset snapshot: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes a dictionary of distinct values; a value's id is its position.
+	 */
+	private static void writeDictionary(DataOutputStream out, List<String> values) throws IOException {
+		out.writeInt(values.size());
+		for (String value : values) {
+			writeString(out, value);
+		}
+	}
+
+	/**
+	 * Reads a dictionary written by writeDictionary and looks up the code of each value.
+	 *
+	 * @return The code in the shared dictionary for each id of the snapshot.
+	 */
+	private static int[] readCodes(ByteBuffer buffer, StringDictionary dictionary) {
+		int[] codes = new int[buffer.getInt()];
+		for (int i = 0; i < codes.length; i++) {
+			codes[i] = dictionary.encode(readString(buffer));
+		}
+		return codes;
+	}
+
+	/**
+	 * Writes a length-prefixed UTF-8 string.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a length-prefixed UTF-8 string.
+	 */
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a date as its epoch day, or NO_DATE if it is missing.
+	 */
+	private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+		out.writeInt(date != null ? (int) date.toEpochDay() : NO_DATE);
+	}
+
+	/**
+	 * Steps over the bytes of a length-prefixed string whose length was just read.
+	 *
+	 * @return The position of the first byte.
+	 */
+	private static int skip(ByteBuffer buffer, int length) {
+		int start = buffer.position();
+		buffer.position(start + length);
+		return start;
+	}
+}
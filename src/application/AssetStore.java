@@ -0,0 +1,1059 @@
+package application;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * The AssetStore class holds assets as encoded records instead of as one object
+ * each. Dates are kept as epoch days, the category and location as codes into a
+ * {@link StringDictionary}, purchased values as cents, and names and descriptions
+ * as UTF-8 bytes. An asset then costs a few dozen bytes plus its text, instead of
+ * eight objects with their headers and copies of the same category and location
+ * strings. The records live in {@link HeapAssetRecords} columns by default, or in
+ * {@link OffHeapAssetRecords} outside the Java heap.
+ *
+ * Reading an asset returns a {@link StoredAsset}, a view that decodes a field only
+ * when it is asked for, which is all the TableView columns need.
+ *
+ * Every asset is kept in a slot whose number becomes its id. The slot keeps that id
+ * while the asset is stored, even when it is replaced or other assets are removed,
+ * and is not reused until the store is cleared; removing the asset releases the
+ * text of its slot. A view of an asset that is no longer stored therefore throws
+ * an IllegalStateException when it is read, rather than showing missing or
+ * another asset's fields. The store is also a list in asset order, so the journal can
+ * replay changes over it, and keeps the list position of each slot, so finding an
+ * asset by its id to change it does not search the list. It is not thread-safe;
+ * the AssetRepository guards it.
+ */
+public final class AssetStore extends AbstractList<AssetInfo> {
+	static final int NO_DATE = Integer.MIN_VALUE; // Epoch day of a missing date
+	private static final byte TEXT_VALUE = -1; // Value format of a purchased value kept as text
+	private static final String DEFAULT_VALUE = "No value provided"; // Purchased value of an asset without one
+
+	/**
+	 * The fields a list of stored assets can be sorted by. Each sorts on its typed
+	 * value: dates by day, purchased values by cents, and text ignoring case.
+	 * Missing dates and values sort before every other value.
+	 */
+	enum SortKey {
+		NAME, CATEGORY, LOCATION, PURCHASE_DATE, DESCRIPTION, PURCHASED_VALUE, WARRANTY_EXPIRATION_DATE
+	}
+
+	private final StringDictionary categories = StringDictionary.CATEGORIES; // Category codes, shared by every store
+	private final StringDictionary locations = StringDictionary.LOCATIONS; // Location codes, shared by every store
+	private final AssetRecords records; // Encoded fields by slot; dates are NO_DATE if missing
+	private final Map<Integer, String> valueTexts = new HashMap<>(); // Purchased values that cents do not reproduce
+	private int slots; // Number of slots handed out
+	private int[] order = new int[16]; // Slots in list order
+	private int[] positions = new int[16]; // List position of each slot, -1 once removed
+	private int size; // Number of stored assets
+	private int generation; // Number of times the store was cleared, so views of earlier slots can tell
+
+	/**
+	 * Creates an empty store keeping its records on the Java heap.
+	 */
+	AssetStore() {
+		this(new HeapAssetRecords());
+	}
+
+	/**
+	 * Creates an empty store keeping its records in the given storage.
+	 *
+	 * @param records The empty records.
+	 */
+	AssetStore(AssetRecords records) {
+		this.records = records;
+	}
+
+	@Override
+	public AssetInfo get(int index) {
+		checkIndex(index, size);
+		return new StoredAsset(order[index]);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Stores an asset in a new slot and inserts it into the list. The id of the
+	 * slot is assigned to the asset as well.
+	 *
+	 * @param index The list position to insert at.
+	 * @param asset The asset to copy into the store.
+	 */
+	@Override
+	public void add(int index, AssetInfo asset) {
+		checkIndex(index, size + 1);
+		if (size == order.length) {
+			order = Arrays.copyOf(order, size * 2);
+		}
+		int slot = slots;
+		write(slot, asset);
+		claim(slot);
+		assignId(asset, slot);
+		System.arraycopy(order, index, order, index + 1, size - index);
+		order[index] = slot;
+		size++;
+		renumber(index);
+		modCount++;
+	}
+
+	/**
+	 * Appends an asset from fields already taken apart by a reader, copying the name
+	 * and description straight from the reader's buffer. No AssetInfo or String is
+	 * created for them; they are decoded only when a view is asked for them.
+	 *
+	 * @param category The category code in {@link StringDictionary#CATEGORIES}.
+	 * @param location The location code in {@link StringDictionary#LOCATIONS}.
+	 * @param purchaseDay The purchase date as an epoch day, or NO_DATE.
+	 * @param warrantyDay The warranty expiration as an epoch day, or NO_DATE.
+	 * @param purchasedValue The purchased value as written.
+	 * @param source The buffer holding the name and description as UTF-8.
+	 * @param nameStart The offset of the name in the buffer.
+	 * @param nameLength The length of the name in bytes.
+	 * @param descriptionStart The offset of the description in the buffer.
+	 * @param descriptionLength The length of the description in bytes.
+	 */
+	void append(int category, int location, int purchaseDay, int warrantyDay, String purchasedValue,
+			ByteBuffer source, int nameStart, int nameLength, int descriptionStart, int descriptionLength) {
+		if (size == order.length) {
+			order = Arrays.copyOf(order, size * 2);
+		}
+		int slot = slots;
+		long cents = AssetInfo.parseCents(purchasedValue);
+		byte format = valueFormat(purchasedValue, cents);
+		if (format == TEXT_VALUE) {
+			valueTexts.put(slot, purchasedValue);
+		}
+		records.write(slot, category, location, purchaseDay, warrantyDay, cents, format, source, nameStart, nameLength,
+				descriptionStart, descriptionLength);
+		claim(slot);
+		positions[slot] = size;
+		order[size++] = slot;
+		modCount++;
+	}
+
+	/**
+	 * Replaces the asset at a list position, keeping its slot and id.
+	 *
+	 * @param index The list position.
+	 * @param asset The asset to copy into the store; it is given the id of the slot.
+	 * @return A detached copy of the asset that was replaced.
+	 */
+	@Override
+	public AssetInfo set(int index, AssetInfo asset) {
+		checkIndex(index, size);
+		int slot = order[index];
+		AssetInfo previous = detach(slot);
+		write(slot, asset);
+		assignId(asset, slot);
+		return previous;
+	}
+
+	/**
+	 * Removes the asset at a list position. Its slot is not used again, and views of
+	 * it fail from now on.
+	 *
+	 * @param index The list position.
+	 * @return A detached copy of the removed asset, holding the id it had.
+	 */
+	@Override
+	public AssetInfo remove(int index) {
+		checkIndex(index, size);
+		int slot = order[index];
+		AssetInfo removed = detach(slot);
+		System.arraycopy(order, index + 1, order, index, size - index - 1);
+		size--;
+		positions[slot] = -1;
+		renumber(index);
+		modCount++;
+		records.release(slot);
+		return removed;
+	}
+
+	/**
+	 * Finds the list position of a stored asset by its id instead of comparing fields,
+	 * without searching the list.
+	 *
+	 * @param o A view from this store, or an asset that was added to it.
+	 * @return The list position, or -1 if the asset is not stored.
+	 */
+	@Override
+	public int indexOf(Object o) {
+		if (!(o instanceof AssetInfo)) {
+			return -1;
+		}
+		if (o instanceof StoredAsset && ((StoredAsset) o).store() != this) {
+			return -1;
+		}
+		int slot = ((AssetInfo) o).getId();
+		if (slot < 0 || slot >= slots) {
+			return -1;
+		}
+		return positions[slot];
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		for (int i = fromIndex; i < toIndex; i++) {
+			records.release(order[i]);
+			positions[order[i]] = -1;
+		}
+		System.arraycopy(order, toIndex, order, fromIndex, size - toIndex);
+		size -= toIndex - fromIndex;
+		renumber(fromIndex);
+		modCount++;
+	}
+
+	/**
+	 * Removes every asset and hands out slots from the first one again, as a new
+	 * store would. Views of the assets it held fail from now on.
+	 */
+	@Override
+	public void clear() {
+		records.clear();
+		valueTexts.clear();
+		slots = 0;
+		size = 0;
+		generation++;
+		modCount++;
+	}
+
+	/**
+	 * Tells whether a slot holds a stored asset.
+	 *
+	 * @param slot The slot.
+	 * @return false if the asset of the slot was removed.
+	 */
+	boolean isStored(int slot) {
+		return slot >= 0 && slot < slots && positions[slot] >= 0;
+	}
+
+	/**
+	 * Returns a view of the asset in a slot.
+	 *
+	 * @param slot The id of the asset.
+	 * @return The view.
+	 */
+	AssetInfo view(int slot) {
+		checkIndex(slot, slots);
+		return new StoredAsset(slot);
+	}
+
+	/**
+	 * Returns the ids of the stored assets in list order.
+	 *
+	 * @return A copy of the ids, which later changes to the store leave alone.
+	 */
+	int[] ids() {
+		return Arrays.copyOf(order, size);
+	}
+
+	/**
+	 * Returns a list of the assets with the given ids. The list holds only the ids
+	 * and creates a view when an element is asked for, so even a list of every
+	 * asset costs four bytes per asset.
+	 *
+	 * @param ids The ids of stored assets, which the list takes over.
+	 * @return The list, in the order of the ids.
+	 */
+	List<AssetInfo> views(int[] ids) {
+		return new ViewList(ids);
+	}
+
+	/**
+	 * Creates an independent copy of the store, for reading on another thread while
+	 * this one keeps changing. Only the encoded records are copied, so it is quick
+	 * enough to take while holding a lock.
+	 *
+	 * @return The copy, with the same assets in the same order.
+	 */
+	AssetStore copy() {
+		AssetStore copy = new AssetStore(records.copy(slots));
+		copy.valueTexts.putAll(valueTexts);
+		copy.slots = slots;
+		copy.order = Arrays.copyOf(order, Math.max(size, 1));
+		copy.positions = Arrays.copyOf(positions, Math.max(slots, 1));
+		copy.size = size;
+		return copy;
+	}
+
+	/**
+	 * Estimates the heap memory taken by the store.
+	 *
+	 * @return The size in bytes.
+	 */
+	long heapBytes() {
+		long bytes = records.heapBytes() + order.length * 4L + positions.length * 4L;
+		for (String value : valueTexts.values()) {
+			bytes += 80 + value.length(); // Map entry, boxed key and String
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the memory taken by the store outside the Java heap.
+	 *
+	 * @return The size in bytes.
+	 */
+	long offHeapBytes() {
+		return records.offHeapBytes();
+	}
+
+	/**
+	 * Hands out the next slot, making room for its list position.
+	 *
+	 * @param slot The slot, which must be the next one.
+	 */
+	private void claim(int slot) {
+		if (slot == positions.length) {
+			positions = Arrays.copyOf(positions, slot * 2);
+		}
+		slots++;
+	}
+
+	/**
+	 * Updates the list positions of the slots from a list position to the end, after
+	 * an insertion or removal moved them.
+	 *
+	 * @param from The first list position that moved.
+	 */
+	private void renumber(int from) {
+		for (int i = from; i < size; i++) {
+			positions[order[i]] = i;
+		}
+	}
+
+	/**
+	 * Copies the fields of an asset into a slot.
+	 *
+	 * @param slot The slot.
+	 * @param asset The asset.
+	 */
+	private void write(int slot, AssetInfo asset) {
+		// Read every field first, as the asset may be a view of this very slot
+		String name = asset.getName();
+		String description = asset.getDescription();
+		String value = asset.getPurchasedValue();
+		long cents = asset.getValueCents();
+		int category = categories.encode(asset.getCategory());
+		int location = locations.encode(asset.getLocation());
+		int purchaseDay = toDay(asset.getPurchaseLocalDate());
+		int warrantyDay = toDay(asset.getWarrantyExpirationLocalDate());
+
+		byte format = valueFormat(value, cents);
+		if (format == TEXT_VALUE) {
+			valueTexts.put(slot, value);
+		} else {
+			valueTexts.remove(slot);
+		}
+		records.write(slot, category, location, purchaseDay, warrantyDay, cents, format, name, description);
+	}
+
+	/**
+	 * Gives an asset copied into a slot the id of the slot. Views keep their own.
+	 *
+	 * @param asset The asset.
+	 * @param slot The slot.
+	 */
+	private static void assignId(AssetInfo asset, int slot) {
+		if (!(asset instanceof StoredAsset)) {
+			asset.setId(slot);
+		}
+	}
+
+	/**
+	 * Builds an ordinary AssetInfo holding the current fields of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The detached asset.
+	 */
+	private AssetInfo detach(int slot) {
+		AssetInfo asset = new AssetInfo();
+		asset.setName(records.name(slot));
+		asset.setCategory(categories.decode(records.categoryCode(slot)));
+		asset.setLocation(locations.decode(records.locationCode(slot)));
+		asset.setPurchaseDate(toDate(records.purchaseDay(slot)));
+		asset.setDescription(records.description(slot));
+		asset.setPurchasedValue(purchasedValue(slot));
+		asset.setWarrantyExpirationDate(toDate(records.warrantyDay(slot)));
+		asset.setId(slot);
+		return asset;
+	}
+
+	/**
+	 * Rebuilds the purchased value text of a slot.
+	 *
+	 * @param slot The slot.
+	 * @return The purchased value as it was entered.
+	 */
+	private String purchasedValue(int slot) {
+		byte format = records.valueFormat(slot);
+		if (format == TEXT_VALUE) {
+			return valueTexts.get(slot);
+		}
+		long cents = records.valueCents(slot);
+		return cents == AssetInfo.NO_VALUE ? DEFAULT_VALUE : formatValue(cents, format);
+	}
+
+	/**
+	 * Works out how a purchased value can be rebuilt from its cents.
+	 *
+	 * @param value The purchased value text.
+	 * @param cents The value parsed into cents.
+	 * @return The number of decimals to format the cents with, or TEXT_VALUE if the text must be kept.
+	 */
+	private static byte valueFormat(String value, long cents) {
+		if (cents == AssetInfo.NO_VALUE) {
+			return DEFAULT_VALUE.equals(value) ? 0 : TEXT_VALUE;
+		}
+		// Digits without leading zeros and at most two decimals are rebuilt exactly from the cents
+		int length = value.length();
+		int point = value.indexOf('.');
+		int whole = point < 0 ? length : point;
+		int decimals = point < 0 ? 0 : length - point - 1;
+		if (whole == 0 || (whole > 1 && value.charAt(0) == '0') || (point >= 0 && (decimals == 0 || decimals > 2))) {
+			return TEXT_VALUE;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if ((c < '0' || c > '9') && i != point) {
+				return TEXT_VALUE;
+			}
+		}
+		return (byte) decimals;
+	}
+
+	/**
+	 * Formats cents with a number of decimals.
+	 *
+	 * @param cents The amount in cents.
+	 * @param decimals 0, 1 or 2.
+	 * @return The formatted value.
+	 */
+	private static String formatValue(long cents, int decimals) {
+		return BigDecimal.valueOf(cents, 2).setScale(decimals, RoundingMode.UNNECESSARY).toPlainString();
+	}
+
+	/**
+	 * Converts a date to an epoch day.
+	 *
+	 * @param date The date, or null.
+	 * @return The epoch day, or NO_DATE for null.
+	 */
+	private static int toDay(LocalDate date) {
+		return date != null ? (int) date.toEpochDay() : NO_DATE;
+	}
+
+	/**
+	 * Converts an epoch day to a date.
+	 *
+	 * @param day The epoch day, or NO_DATE.
+	 * @return The date, or null for NO_DATE.
+	 */
+	private static LocalDate toDate(int day) {
+		return day != NO_DATE ? LocalDate.ofEpochDay(day) : null;
+	}
+
+	/**
+	 * Checks a list position or slot against a bound.
+	 *
+	 * @param index The position.
+	 * @param bound The first position past the end.
+	 */
+	private static void checkIndex(int index, int bound) {
+		if (index < 0 || index >= bound) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bound);
+		}
+	}
+
+	/**
+	 * The ViewList class is a list of stored assets kept as an array of ids. Elements
+	 * can be removed, which leaves the store alone, reordered by sorting and appended
+	 * by id, but not replaced.
+	 */
+	final class ViewList extends AbstractList<AssetInfo> implements RandomAccess {
+		private int[] ids; // Ids of the listed assets, with room to append
+		private int size; // Number of listed assets
+
+		/**
+		 * Creates a list of the assets with the given ids.
+		 *
+		 * @param ids The ids.
+		 */
+		private ViewList(int[] ids) {
+			this.ids = ids;
+			this.size = ids.length;
+		}
+
+		@Override
+		public AssetInfo get(int index) {
+			checkIndex(index, size);
+			return view(ids[index]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public AssetInfo remove(int index) {
+			AssetInfo removed = get(index);
+			System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+			size--;
+			modCount++;
+			return removed;
+		}
+
+		/**
+		 * Finds an asset by its id without creating a view per element.
+		 */
+		@Override
+		public int indexOf(Object o) {
+			if (!(o instanceof StoredAsset) || ((StoredAsset) o).store() != AssetStore.this) {
+				return -1;
+			}
+			return indexOfId(((StoredAsset) o).getId());
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return indexOf(o) >= 0;
+		}
+
+		/**
+		 * Finds the list position of an id.
+		 *
+		 * @param id The id.
+		 * @return The list position, or -1 if the id is not listed.
+		 */
+		int indexOfId(int id) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == id) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Finds the listed assets that are no longer stored, such as those removed while
+		 * the list was not following the changes.
+		 *
+		 * @return Their ids.
+		 */
+		BitSet unstoredIds() {
+			BitSet unstored = new BitSet();
+			for (int i = 0; i < size; i++) {
+				if (!isStored(ids[i])) {
+					unstored.set(ids[i]);
+				}
+			}
+			return unstored;
+		}
+
+		/**
+		 * Appends a stored asset by its id.
+		 *
+		 * @param id The id, which need not have existed when the list was created.
+		 */
+		void addId(int id) {
+			checkIndex(id, slots);
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, Math.max(8, size + (size >> 1)));
+			}
+			ids[size++] = id;
+			modCount++;
+		}
+
+		/**
+		 * Inserts a stored asset by its id where it belongs in a list sorted by the
+		 * given fields, after the rows it ties with, as if it had been appended
+		 * before the list was sorted.
+		 *
+		 * @param id The id, which need not have existed when the list was created.
+		 * @param keys The fields the list is sorted by.
+		 * @param descending Whether each field sorts in descending order.
+		 * @return The list position it was inserted at.
+		 */
+		int insertId(int id, SortKey[] keys, boolean[] descending) {
+			checkIndex(id, slots);
+			int low = 0;
+			int high = size;
+			while (low < high) { // Finds the first row sorting after the asset
+				int middle = (low + high) >>> 1;
+				if (compare(ids[middle], id, keys, descending) <= 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, Math.max(8, size + (size >> 1)));
+			}
+			System.arraycopy(ids, low, ids, low + 1, size - low);
+			ids[low] = id;
+			size++;
+			modCount++;
+			return low;
+		}
+
+		/**
+		 * Returns whether each listed asset whose id is in a set still sorts between
+		 * its neighbours, as after an edit that left its sort fields alone.
+		 *
+		 * @param checked The ids to check.
+		 * @param keys The fields the list is sorted by.
+		 * @param descending Whether each field sorts in descending order.
+		 * @return true if none of them is out of place.
+		 */
+		boolean inOrder(BitSet checked, SortKey[] keys, boolean[] descending) {
+			for (int i = 0; i < size; i++) {
+				if (checked.get(ids[i]) && (i > 0 && compare(ids[i - 1], ids[i], keys, descending) > 0
+						|| i + 1 < size && compare(ids[i], ids[i + 1], keys, descending) > 0)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Compares two stored assets by one or more fields, the first deciding.
+		 *
+		 * @param a The slot of the first asset.
+		 * @param b The slot of the second asset.
+		 * @param keys The fields to compare.
+		 * @param descending Whether each field sorts in descending order.
+		 * @return A negative number, zero or a positive number as the first sorts before, with or after the second.
+		 */
+		private int compare(int a, int b, SortKey[] keys, boolean[] descending) {
+			for (int k = 0; k < keys.length; k++) {
+				int result;
+				switch (keys[k]) {
+				case PURCHASE_DATE:
+					result = Integer.compare(records.purchaseDay(a), records.purchaseDay(b));
+					break;
+				case WARRANTY_EXPIRATION_DATE:
+					result = Integer.compare(records.warrantyDay(a), records.warrantyDay(b));
+					break;
+				case PURCHASED_VALUE:
+					result = Long.compare(records.valueCents(a), records.valueCents(b));
+					break;
+				default:
+					result = String.CASE_INSENSITIVE_ORDER.compare(text(keys[k], a), text(keys[k], b));
+					break;
+				}
+				if (result != 0) {
+					return descending[k] ? -result : result;
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Removes every listed asset whose id is in a set, in one pass over the list.
+		 *
+		 * @param removed The ids to remove, each of them listed.
+		 * @param positions Receives the list positions the removed assets had, in
+		 *                  order; one for each id in the set.
+		 * @param removedIds Receives the ids of the removed assets, in the same order.
+		 */
+		void removeIds(BitSet removed, int[] positions, int[] removedIds) {
+			int kept = 0;
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				int id = ids[i];
+				if (!removed.get(id)) {
+					ids[kept++] = id;
+				} else {
+					positions[count] = i;
+					removedIds[count++] = id;
+				}
+			}
+			if (kept != size) {
+				size = kept;
+				modCount++;
+			}
+		}
+
+		/**
+		 * Copies the list, so later changes to either leave the other alone.
+		 *
+		 * @return The copy.
+		 */
+		ViewList copy() {
+			return new ViewList(Arrays.copyOf(ids, size));
+		}
+
+		/**
+		 * Returns a view of a stored asset, listed or not.
+		 *
+		 * @param id The id.
+		 * @return The view.
+		 */
+		AssetInfo lookup(int id) {
+			return view(id);
+		}
+
+		/**
+		 * Returns the id of an element without creating a view.
+		 *
+		 * @param index The list position.
+		 * @return The id.
+		 */
+		int id(int index) {
+			checkIndex(index, size);
+			return ids[index];
+		}
+
+		/**
+		 * Sorts the list by one or more fields, the first deciding and each next one
+		 * breaking ties, and keeps the current order of rows that tie on every field.
+		 * The keys are read from the records once per row, so only the text fields
+		 * decode anything.
+		 *
+		 * @param keys The fields to sort by.
+		 * @param descending Whether each field sorts in descending order.
+		 * @return The old position of the row now at each position.
+		 */
+		int[] sort(SortKey[] keys, boolean[] descending) {
+			IntBinaryOperator order = null;
+			for (int k = keys.length - 1; k >= 0; k--) {
+				IntBinaryOperator field = comparator(keys[k]);
+				IntBinaryOperator directed = descending[k] ? (a, b) -> field.applyAsInt(b, a) : field;
+				IntBinaryOperator next = order;
+				order = next == null ? directed : (a, b) -> {
+					int result = directed.applyAsInt(a, b);
+					return result != 0 ? result : next.applyAsInt(a, b);
+				};
+			}
+			int[] positions = new int[size];
+			for (int i = 0; i < size; i++) {
+				positions[i] = i;
+			}
+			if (order != null) {
+				mergeSort(positions, new int[size], 0, size, order);
+				int[] sorted = new int[size];
+				for (int i = 0; i < size; i++) {
+					sorted[i] = ids[positions[i]];
+				}
+				System.arraycopy(sorted, 0, ids, 0, size);
+				modCount++;
+			}
+			return positions;
+		}
+
+		/**
+		 * Creates a comparator of list positions on the typed value of a field.
+		 *
+		 * @param key The field.
+		 * @return The comparator, reading keys extracted up front.
+		 */
+		private IntBinaryOperator comparator(SortKey key) {
+			switch (key) {
+			case PURCHASE_DATE:
+			case WARRANTY_EXPIRATION_DATE:
+				int[] days = new int[size];
+				for (int i = 0; i < size; i++) {
+					days[i] = key == SortKey.PURCHASE_DATE ? records.purchaseDay(ids[i]) : records.warrantyDay(ids[i]);
+				}
+				return (a, b) -> Integer.compare(days[a], days[b]);
+			case PURCHASED_VALUE:
+				long[] cents = new long[size];
+				for (int i = 0; i < size; i++) {
+					cents[i] = records.valueCents(ids[i]);
+				}
+				return (a, b) -> Long.compare(cents[a], cents[b]);
+			default:
+				String[] texts = new String[size];
+				for (int i = 0; i < size; i++) {
+					texts[i] = text(key, ids[i]);
+				}
+				return (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(texts[a], texts[b]);
+			}
+		}
+
+		/**
+		 * Reads the text a row shows for a text field.
+		 *
+		 * @param key The field.
+		 * @param slot The slot of the row.
+		 * @return The text, never null.
+		 */
+		private String text(SortKey key, int slot) {
+			String text;
+			switch (key) {
+			case CATEGORY:
+				text = categories.decode(records.categoryCode(slot));
+				break;
+			case LOCATION:
+				text = locations.decode(records.locationCode(slot));
+				break;
+			case DESCRIPTION:
+				text = records.description(slot);
+				text = text != null ? text : "No description provided";
+				break;
+			default:
+				text = records.name(slot);
+				break;
+			}
+			return text != null ? text : "";
+		}
+	}
+
+	/**
+	 * Sorts list positions stably with a merge sort, as the JDK has no sort of
+	 * primitives with a comparator.
+	 *
+	 * @param positions The positions to sort.
+	 * @param buffer Scratch space as long as the positions.
+	 * @param from The first position of the range, included.
+	 * @param to The last position of the range, excluded.
+	 * @param order Compares two positions.
+	 */
+	private static void mergeSort(int[] positions, int[] buffer, int from, int to, IntBinaryOperator order) {
+		if (to - from < 16) {
+			for (int i = from + 1; i < to; i++) { // Insertion sort for short ranges
+				int position = positions[i];
+				int j = i - 1;
+				while (j >= from && order.applyAsInt(positions[j], position) > 0) {
+					positions[j + 1] = positions[j];
+					j--;
+				}
+				positions[j + 1] = position;
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(positions, buffer, from, middle, order);
+		mergeSort(positions, buffer, middle, to, order);
+		if (order.applyAsInt(positions[middle - 1], positions[middle]) <= 0) {
+			return; // Already in order
+		}
+		System.arraycopy(positions, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && order.applyAsInt(buffer[left], buffer[right]) <= 0)) {
+				positions[i] = buffer[left++];
+			} else {
+				positions[i] = buffer[right++];
+			}
+		}
+	}
+
+	/**
+	 * The StoredAsset class is a view of one slot of the store. It holds nothing but
+	 * the slot, so it is cheap to create for each row shown, and reads the current
+	 * fields of the slot each time a getter is called. Changes to the stored asset go
+	 * through the AssetRepository, which replaces the whole asset. Calling a setter
+	 * turns the view into a detached copy instead: it takes the current fields of
+	 * the slot as its own, like any AssetInfo, and the store is left alone. Reading a
+	 * view whose asset was removed throws an IllegalStateException. It is public,
+	 * like AssetInfo, so its getters can be called by reflection, as
+	 * PropertyValueFactory does.
+	 */
+	public final class StoredAsset extends AssetInfo {
+		private final int slot; // Slot of the asset, which is also its id
+		private final int generation; // Generation of the store the slot belongs to
+		private boolean detached; // Whether a setter was called, so the fields of AssetInfo are read instead of the slot
+
+		/**
+		 * Creates a view of a slot.
+		 *
+		 * @param slot The slot.
+		 */
+		private StoredAsset(int slot) {
+			this.slot = slot;
+			this.generation = AssetStore.this.generation;
+		}
+
+		// Getter for the store holding the asset
+		AssetStore store() {
+			return AssetStore.this;
+		}
+
+		@Override
+		public String getName() {
+			return detached ? super.getName() : records.name(live());
+		}
+
+		@Override
+		public String getCategory() {
+			return detached ? super.getCategory() : categories.decode(records.categoryCode(live()));
+		}
+
+		@Override
+		public String getLocation() {
+			return detached ? super.getLocation() : locations.decode(records.locationCode(live()));
+		}
+
+		@Override
+		public String getPurchaseDate() {
+			if (detached) {
+				return super.getPurchaseDate();
+			}
+			int day = records.purchaseDay(live());
+			return day != NO_DATE ? LocalDate.ofEpochDay(day).toString() : "No date provided";
+		}
+
+		@Override
+		public LocalDate getPurchaseLocalDate() {
+			return detached ? super.getPurchaseLocalDate() : toDate(records.purchaseDay(live()));
+		}
+
+		@Override
+		public String getDescription() {
+			if (detached) {
+				return super.getDescription();
+			}
+			String description = records.description(live());
+			return description != null ? description : "No description provided";
+		}
+
+		@Override
+		public String getPurchasedValue() {
+			return detached ? super.getPurchasedValue() : purchasedValue(live());
+		}
+
+		@Override
+		long getValueCents() {
+			return detached ? super.getValueCents() : records.valueCents(live());
+		}
+
+		@Override
+		boolean hasValue() {
+			return detached ? super.hasValue() : records.valueCents(live()) != AssetInfo.NO_VALUE;
+		}
+
+		@Override
+		public String getWarrantyExpirationDate() {
+			if (detached) {
+				return super.getWarrantyExpirationDate();
+			}
+			int day = records.warrantyDay(live());
+			return day != NO_DATE ? LocalDate.ofEpochDay(day).toString() : "No date provided";
+		}
+
+		@Override
+		public LocalDate getWarrantyExpirationLocalDate() {
+			return detached ? super.getWarrantyExpirationLocalDate() : toDate(records.warrantyDay(live()));
+		}
+
+		@Override
+		int getId() {
+			return detached ? super.getId() : slot;
+		}
+
+		@Override
+		public void setName(String name) {
+			detach();
+			super.setName(name);
+		}
+
+		@Override
+		public void setCategory(String category) {
+			detach();
+			super.setCategory(category);
+		}
+
+		@Override
+		public void setLocation(String location) {
+			detach();
+			super.setLocation(location);
+		}
+
+		@Override
+		public void setPurchaseDate(LocalDate purchaseDate) {
+			detach();
+			super.setPurchaseDate(purchaseDate);
+		}
+
+		@Override
+		public void setDescription(String description) {
+			detach();
+			super.setDescription(description);
+		}
+
+		@Override
+		public void setPurchasedValue(String purchasedValue) {
+			detach();
+			super.setPurchasedValue(purchasedValue);
+		}
+
+		@Override
+		public void setWarrantyExpirationDate(LocalDate warrantyExpirationDate) {
+			detach();
+			super.setWarrantyExpirationDate(warrantyExpirationDate);
+		}
+
+		@Override
+		void setId(int id) {
+			detach();
+			super.setId(id);
+		}
+
+		/**
+		 * Two views are equal when they show the same slot of the same store.
+		 */
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof StoredAsset && ((StoredAsset) o).store() == AssetStore.this && ((StoredAsset) o).slot == slot;
+		}
+
+		@Override
+		public int hashCode() {
+			return slot;
+		}
+
+		/**
+		 * Checks that the asset of the view is still stored before its slot is read.
+		 *
+		 * @return The slot.
+		 * @throws IllegalStateException If the asset was removed or the store cleared.
+		 */
+		private int live() {
+			if (generation != AssetStore.this.generation || !isStored(slot)) {
+				throw new IllegalStateException("Asset " + slot + " is no longer stored");
+			}
+			return slot;
+		}
+
+		/**
+		 * Copies the current fields of the slot into the fields of AssetInfo, the first
+		 * time a setter is called, and reads those from then on.
+		 */
+		private void detach() {
+			if (!detached) {
+				int slot = live();
+				super.setName(records.name(slot));
+				super.setCategory(categories.decode(records.categoryCode(slot)));
+				super.setLocation(locations.decode(records.locationCode(slot)));
+				super.setPurchaseDate(toDate(records.purchaseDay(slot)));
+				super.setDescription(records.description(slot));
+				super.setPurchasedValue(purchasedValue(slot));
+				super.setWarrantyExpirationDate(toDate(records.warrantyDay(slot)));
+				super.setId(slot);
+				detached = true;
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package application;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The BitmapIndex class maps the value of one low-cardinality asset field, such
+ * as the category, the location or the warranty state, to a compressed bitmap of
+ * the ids of the assets holding it. Filters over several such fields intersect
+ * the bitmaps instead of checking each asset, and a lookup costs time in
+ * proportion to the number of matching assets rather than the number of assets.
+ */
+class BitmapIndex implements AssetIndex {
+	private static final IdBitmap EMPTY = new IdBitmap();
+
+	private final Function<AssetInfo, String> field; // Reads the indexed field of an asset
+	private final Map<String, IdBitmap> postings = new HashMap<>(); // Field value to asset ids
+
+	/**
+	 * Creates an index over one field.
+	 *
+	 * @param field Reads the indexed field of an asset.
+	 */
+	BitmapIndex(Function<AssetInfo, String> field) {
+		this.field = field;
+	}
+
+	/**
+	 * Adds an asset to the index.
+	 *
+	 * @param asset The asset, with its id assigned.
+	 */
+	@Override
+	public void add(AssetInfo asset) {
+		postings.computeIfAbsent(field.apply(asset), key -> new IdBitmap()).add(asset.getId());
+	}
+
+	/**
+	 * Removes an asset from the index.
+	 *
+	 * @param asset The asset, as it was added.
+	 */
+	@Override
+	public void remove(AssetInfo asset) {
+		String key = field.apply(asset);
+		IdBitmap ids = postings.get(key);
+		if (ids != null) {
+			ids.remove(asset.getId());
+			if (ids.size() == 0) {
+				postings.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Moves an asset from the entry of its old value to the entry of its new value.
+	 * Both versions of the asset carry the same id.
+	 *
+	 * @param current The asset as it was added.
+	 * @param updated The edited asset.
+	 */
+	@Override
+	public void update(AssetInfo current, AssetInfo updated) {
+		if (!Objects.equals(field.apply(current), field.apply(updated))) {
+			remove(current);
+			add(updated);
+		}
+	}
+
+	/**
+	 * Returns the ids of the assets holding a value. The bitmap must not be modified.
+	 *
+	 * @param value The field value.
+	 * @return The matching ids.
+	 */
+	IdBitmap get(String value) {
+		IdBitmap ids = postings.get(value);
+		return ids != null ? ids : EMPTY;
+	}
+
+	/**
+	 * Estimates the heap memory of the bitmaps, leaving out the field values, which
+	 * the assets share.
+	 *
+	 * @return The size in bytes.
+	 */
+	long memoryBytes() {
+		long bytes = 0;
+		for (IdBitmap ids : postings.values()) {
+			bytes += 32 + ids.memoryBytes(); // Map entry and bitmap
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of distinct values indexed.
+	 *
+	 * @return The number of bitmaps.
+	 */
+	int valueCount() {
+		return postings.size();
+	}
+}
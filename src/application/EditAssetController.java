@@ -1,23 +1,16 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.PrintWriter;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,9 +23,7 @@ import java.util.stream.Collectors;
  */
 
 public class EditAssetController {
-	final String filePath_assets = "assets.csv";
-	private List<AssetInfo> list;
-	private int target;
+	private AssetInfo target; // Asset being edited
 
 	@FXML
 	private TextField assetNameLabel; // Text field for entering assetName
@@ -58,18 +49,17 @@ public class EditAssetController {
 	private DatePicker warrantyExpirationDatePicker;// Date chooser for warranty expiration date if any
 
 	/**
-     * Initializes the controller class. This method is automatically called after
-     * the fxml file has been loaded. It calls methods to populate the category and
-     * location dropdowns.
+     * Initializes the controller class for an asset. This method is called every time
+     * the page is shown, as the page is loaded only once. It calls methods to populate
+     * the category and location dropdowns.
      *
-     * @param assets The list of existing assets.
-     * @param index  The index of the asset to be edited in the list.
+     * @param asset The asset to be edited.
      */
-	public void initialize(List<AssetInfo> assets, int index) {
+	public void initialize(AssetInfo asset) {
 		loadCategories();
 		loadLocations();
-		this.list = assets;
-		this.target = index;
+		this.target = asset;
+		assetDisplayLabel.setText("Edit Asset"); // The page is reused, so clears an earlier error
 		setSelectedAsset();
 	}
 
@@ -117,11 +107,15 @@ public class EditAssetController {
 			AssetInfo asset = new AssetInfo(assetNameLabel.getText(), categoryComboBox.getValue(), location,
 					purchaseDatePicker.getValue(), descriptionTextArea.getText(), purchasedValueTextField.getText(),
 					warrantyExpirationDatePicker.getValue());
-			list.set(target, asset);
-
-			
-			overWriteCSV();
-			returnSearchPage();
+			AssetInfo edited = target;
+			// Never waits on the JavaFX Application Thread for assets still loading
+			AssetRepository.whenLoaded().whenCompleteAsync((repository, failure) -> {
+				if (repository != null && repository.update(edited, asset)) {
+					returnSearchPage();
+				} else {
+					assetDisplayLabel.setText("Error: The asset could not be saved.");
+				}
+			}, Platform::runLater);
 		}
 	}
 	
@@ -129,76 +123,13 @@ public class EditAssetController {
 	@FXML
 	private void returnSearchPage() {
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Search.fxml"));
-			Parent root = loader.load();
 			Stage stage = (Stage) assetNameLabel.getScene().getWindow();
-			Scene scene = new Scene(root);
-			stage.setTitle("Search Asset");
-			stage.setScene(scene);
-			stage.show();
+			Navigator.show(stage, Navigator.SEARCH, "Search Asset");
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
-	// overwrite deleted result to csv file
-	private void overWriteCSV() {
-		clearCSV();
-		for (AssetInfo itr : list) {
-			saveAssetToCSV(itr);
-		}
-	}
-
-	public void clearCSV() {
-		// file path for the CSV file at instance variable
-		try {
-			// Write an empty list to the file, truncating it to zero size
-			Files.write(Paths.get(filePath_assets), Collections.emptyList(), StandardOpenOption.TRUNCATE_EXISTING);
-			// testing message
-			System.out.println("CSV file has been cleared.");
-		} catch (IOException e) {
-			// testing message
-			System.err.println("Error clearing the CSV file: " + e.getMessage());
-		}
-	}
-
-	/**
-	 * Saves the entered asset information to a CSV file if already exist else makes
-	 * a new CSV file.
-	 * 
-	 * @param asset The asset to save.
-	 */
-	private void saveAssetToCSV(AssetInfo asset) {
-		// file path for the CSV file at instance variable
-
-		try {
-			// Check if the file does not exist and create it if necessary
-			if (!Files.exists(Paths.get(filePath_assets))) {
-				Files.createFile(Paths.get(filePath_assets));
-			}
-			// Write the assets details to the CSV file
-			try (FileWriter fw = new FileWriter(filePath_assets, true);
-					BufferedWriter bw = new BufferedWriter(fw);
-					PrintWriter out = new PrintWriter(bw)) {
-				out.print(String.join(", ", asset.getName(), asset.getCategory(), asset.getLocation(),
-						asset.getPurchaseDate(), // != null ?
-													// asset.getPurchaseDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-													// : "",
-						asset.getDescription(), asset.getPurchasedValue(), asset.getWarrantyExpirationDate()// != null ?
-																											// asset.getWarrantyExpirationDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-																											// : ""
-				));
-				out.println();// Move to a new line in the file
-			} catch (IOException e) {
-				System.err.println("Error writing to CSV file: " + e.getMessage());// Handle possible I/O errors
-			}
-		} catch (IOException ex) {
-			System.err.println("An error occurred initializing the CSV file: " + ex.getMessage());// Handle file
-																									// creation errors
-		}
-	}
-
-
 	/**
 	 * Handles the action event when the "Back To Home" button is clicked. Loads the
 	 * homepage FXML file and sets it as the scene for the stage.
@@ -206,13 +137,8 @@ public class EditAssetController {
 	@FXML
 	private void goHome() {
 		try {
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml"));     // Load the FXML file into a Parent node
-			Parent root = loader.load();
 			Stage stage = (Stage) assetNameLabel.getScene().getWindow();
-			Scene scene = new Scene(root);	        // Create a new scene with the loaded FXML file
-			stage.setTitle("Welcome Home");
-			stage.setScene(scene);			// Set the scene of the stage to the loaded FXML scene
-			stage.show();
+			Navigator.show(stage, Navigator.WELCOME, "Welcome Home");
 		} catch (IOException e) {
 			e.printStackTrace();         // Print stack trace if an IOException occurs
 		}
@@ -220,13 +146,13 @@ public class EditAssetController {
 
 	public void setSelectedAsset() {
 		// initialize fields or controls with the asset information
-		assetNameLabel.setText(list.get(target).getName());
-		categoryComboBox.setValue(list.get(target).getCategory());
-		locationComboBox.setValue(list.get(target).getLocation());
-		purchaseDatePicker.setValue(list.get(target).getPurchaseLocalDate());
-		descriptionTextArea.setText(list.get(target).getDescription());
-		purchasedValueTextField.setText(list.get(target).getPurchasedValue());
-		warrantyExpirationDatePicker.setValue(list.get(target).getWarrantyExpirationLocalDate());
+		assetNameLabel.setText(target.getName());
+		categoryComboBox.setValue(target.getCategory());
+		locationComboBox.setValue(target.getLocation());
+		purchaseDatePicker.setValue(target.getPurchaseLocalDate());
+		descriptionTextArea.setText(target.getDescription());
+		purchasedValueTextField.setText(target.getPurchasedValue());
+		warrantyExpirationDatePicker.setValue(target.getWarrantyExpirationLocalDate());
 
 	}
 
@@ -0,0 +1,249 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import javafx.collections.ListChangeListener;
+import javafx.fxml.FXML;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.stage.Stage;
+
+/**
+ * Controller class for the FilterAssets.fxml file. It combines the name,
+ * category, location, purchase date, value and warranty filters of the other
+ * list screens into one query.
+ */
+public class FilterAssetsController implements Navigator.Refreshable {
+	private static final String[] WARRANTY_STATES = { "Any warranty", "Expired", "Active", "No warranty" }; // Warranty filter choices
+	static final int MOST_VALUABLE = 10; // Assets listed by the most valuable action
+
+	@FXML
+	TextField assetName; // Text field for the text the asset name contains
+	@FXML
+	private ComboBox<String> categoryComboBox; // Dropdown box for categories defined
+	@FXML
+	private ComboBox<String> locationComboBox; // Dropdown box for locations defined
+	@FXML
+	private ComboBox<String> warrantyComboBox; // Dropdown box for the warranty state
+	@FXML
+	private DatePicker purchasedFrom; // First purchase date to include
+	@FXML
+	private DatePicker purchasedTo; // Last purchase date to include
+	@FXML
+	TextField minValue; // Text field for the lowest purchased value
+	@FXML
+	TextField maxValue; // Text field for the highest purchased value
+	@FXML
+	private Label statusLabel; // Label for the number of matches or an input error
+	@FXML
+	TableView<AssetInfo> tableView = new TableView<>(); //TableView for displaying asset information.
+	private final PagedAssetList list = new PagedAssetList(new ArrayList<>()); // Rows of the table; each search swaps in its result
+	private TableLoader loader; // Loads the assets and runs queries off the JavaFX Application Thread
+	private Runnable shownSearch; // Query or lookup whose result is listed, run again when the page is shown after going home
+
+	@FXML
+	TableColumn<AssetInfo, String> name; //TableColumn for displaying asset names
+
+	@FXML
+	TableColumn<AssetInfo, String> category; //TableColumn for displaying categories
+
+	@FXML TableColumn<AssetInfo, String> locationName; //TableColumn for displaying asset locations
+
+	@FXML
+	TableColumn<AssetInfo, String> purchaseDate; //TableColumn for displaying purchase dates
+
+	@FXML
+	TableColumn<AssetInfo, String> description; //TableColumn for displaying asset descriptions
+
+	@FXML
+	TableColumn<AssetInfo, String> purchaseValue; //TableColumn for displaying asset purchase value
+
+	@FXML
+	TableColumn<AssetInfo, String> warrantyExpirationDate; //TableColumn for displaying asset warranty expiration dates
+
+	/**
+	 * Initializes the controller class. This method is automatically called after
+	 * the FXML file has been loaded.
+	 */
+	public void initialize() {
+		loader = new TableLoader(tableView);
+
+		// Reads each column through its getter, without reflection
+		AssetColumns.bind(tableView, name, category, locationName, purchaseDate, description, purchaseValue, warrantyExpirationDate);
+		tableView.setItems(list);
+		// Changes made on any screen that reach the table change the count as well
+		list.addListener((ListChangeListener<AssetInfo>) change -> statusLabel.setText(list.size() + " matches"));
+	}
+
+	/**
+	 * Loads the options when the page is first shown.
+	 */
+	@Override
+	public void load() {
+		loadChoices();
+	}
+
+	/**
+	 * Reloads the options, which may have been added to, keeping the chosen filters,
+	 * when the page is shown again. The listed assets already follow the changes
+	 * made elsewhere, unless the page was left for the home page, in which case
+	 * the query that listed them is run again, whatever the filters hold now.
+	 */
+	@Override
+	public void refresh() {
+		String category = categoryComboBox.getValue();
+		String location = locationComboBox.getValue();
+		String warranty = warrantyComboBox.getValue();
+		loadChoices();
+		categoryComboBox.setValue(category);
+		locationComboBox.setValue(location);
+		warrantyComboBox.setValue(warranty);
+		if (!list.isFollowing() && shownSearch != null) {
+			shownSearch.run();
+		}
+	}
+
+	/**
+	 * Loads the category and location options from their CSV files and the warranty
+	 * states into the dropdown boxes.
+	 */
+	private void loadChoices() {
+		try {
+			categoryComboBox.getItems().setAll(Files.readAllLines(Paths.get("categories.csv")));
+		} catch (IOException e) {
+			System.err.println("Error loading categories: " + e.getMessage());
+		}
+		try {
+			locationComboBox.getItems().setAll(Files.readAllLines(Paths.get("locations.csv")));
+		} catch (IOException e) {
+			System.err.println("Error loading locations: " + e.getMessage());
+		}
+		warrantyComboBox.getItems().setAll(WARRANTY_STATES);
+		warrantyComboBox.getSelectionModel().selectFirst();
+	}
+
+	/**
+	 * Handles the search action: builds a query from every filled-in filter and
+	 * shows the matching assets. The first search waits for the repository to load,
+	 * and a query may build the name index, so it runs in the background.
+	 */
+	@FXML
+	public void searchAssets() {
+		AssetQuery query = new AssetQuery();
+		query.setName(assetName.getText());
+		query.setCategory(categoryComboBox.getValue());
+		if (locationComboBox.getValue() != null) {
+			query.setLocation(locationComboBox.getValue().split(",", 2)[0].trim()); // Lines hold the name and a description
+		}
+		query.setPurchasedFrom(purchasedFrom.getValue());
+		query.setPurchasedTo(purchasedTo.getValue());
+		try {
+			query.setMinValueCents(parseValue(minValue.getText()));
+			query.setMaxValueCents(parseValue(maxValue.getText()));
+		} catch (NumberFormatException e) {
+			statusLabel.setText("Enter values as numbers");
+			return;
+		}
+		int state = warrantyComboBox.getSelectionModel().getSelectedIndex();
+		query.setWarranty(state > 0 ? AssetQuery.WarrantyState.values()[state - 1] : null);
+		find(query);
+	}
+
+	/**
+	 * Lists the assets matching a query, and keeps the query to run again when the
+	 * page is shown after going home.
+	 *
+	 * @param query The query to run.
+	 */
+	private void find(AssetQuery query) {
+		list.searchStarted();
+		loader.load("Searching...", () -> {
+			AssetRepository repository = AssetRepository.getInstance();
+			list.follow(repository); // Adds, edits and deletes made on any screen reach the table; before reading, so none is missed
+			return repository.find(query);
+		}, matches -> {
+			statusLabel.setText(matches.size() + " matches");
+			shownSearch = () -> find(query);
+			list.setSource(matches, query::matches); // Reports only the rows that changed
+		});
+	}
+
+	/**
+	 * Handles the most valuable action: lists the assets with the highest purchased
+	 * value, the highest first, read from the end of the value index rather than
+	 * sorting every asset. The filters are left as they are.
+	 */
+	@FXML
+	public void showMostValuable() {
+		list.searchStarted();
+		loader.load("Searching...", () -> {
+			AssetRepository repository = AssetRepository.getInstance();
+			list.follow(repository);
+			return repository.findMostValuable(MOST_VALUABLE);
+		}, top -> {
+			shownSearch = this::showMostValuable;
+			list.setSource(top); // Deletes and edits still reach the rows; new assets do not join them
+			statusLabel.setText(top.size() + " most valuable"); // After the rows, whose change sets the count
+		});
+	}
+
+	/**
+	 * Handles the clear action: empties every filter and the table.
+	 */
+	@FXML
+	public void clearFilters() {
+		loader.cancel();
+		assetName.clear();
+		categoryComboBox.setValue(null);
+		locationComboBox.setValue(null);
+		purchasedFrom.setValue(null);
+		purchasedTo.setValue(null);
+		minValue.clear();
+		maxValue.clear();
+		warrantyComboBox.getSelectionModel().selectFirst();
+		shownSearch = null;
+		list.setSource(new ArrayList<>());
+		statusLabel.setText("");
+	}
+
+	/**
+	 * Parses the text of a value field.
+	 *
+	 * @param text The text entered.
+	 * @return The value in cents, or null if the field is empty.
+	 * @throws NumberFormatException If the text is not a number.
+	 */
+	private static Long parseValue(String text) {
+		if (text == null || text.trim().isEmpty()) {
+			return null;
+		}
+		long cents = AssetInfo.parseCents(text);
+		if (cents == AssetInfo.NO_VALUE) {
+			throw new NumberFormatException(text);
+		}
+		return cents;
+	}
+
+	/**
+	 * Handles the action event when the "Back To Home" button is clicked. Loads the
+	 * homepage FXML file and sets it as the scene for the stage.
+	 */
+	@FXML
+	public void goHome() {
+		loader.cancel();
+		list.stopFollowing(); // Looked up again when the page is shown again
+		try {
+			Stage stage = (Stage) assetName.getScene().getWindow();
+			Navigator.show(stage, Navigator.WELCOME, "Welcome to TrackWise");
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
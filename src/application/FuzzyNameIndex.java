@@ -0,0 +1,323 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FuzzyNameIndex class finds assets whose name nearly matches a query, so a
+ * misspelled name still finds the asset. The words of every lowercased name are
+ * kept in a BK-tree: each child hangs off its parent under its edit distance to
+ * the parent's word, and by the triangle inequality a search only needs to
+ * descend into the children whose distance is within the allowed number of
+ * typos of the query's own distance to the parent.
+ *
+ * Every word of the query has to match a word of the name. Short words allow
+ * fewer typos, since two edits turn any two-letter word into any other.
+ */
+class FuzzyNameIndex implements AssetIndex {
+	static final int MAX_DISTANCE = 2; // Most typos allowed in one word
+
+	private Node root; // First word indexed; null while the index is empty
+	private final Pattern adding = new Pattern(); // Measures from the word being added; changes are never made side by side
+
+	/**
+	 * A word in the tree with the ids of the names containing it. A word whose
+	 * last asset is removed stays in the tree with no ids, as the tree's shape
+	 * depends on it.
+	 */
+	private static class Node {
+		final String word; // The word
+		final IdSet ids = new IdSet(); // Ids of the names containing the word
+		Node[] children = new Node[0]; // Children by their edit distance to this word
+
+		Node(String word) {
+			this.word = word;
+		}
+	}
+
+	@Override
+	public void add(AssetInfo asset) {
+		for (String word : words(TrigramIndex.normalize(asset.getName()))) {
+			node(word).ids.add(asset.getId());
+		}
+	}
+
+	@Override
+	public void remove(AssetInfo asset) {
+		for (String word : words(TrigramIndex.normalize(asset.getName()))) {
+			node(word).ids.remove(asset.getId());
+		}
+	}
+
+	@Override
+	public void update(AssetInfo current, AssetInfo updated) {
+		if (!TrigramIndex.normalize(current.getName()).equals(TrigramIndex.normalize(updated.getName()))) {
+			remove(current);
+			add(updated);
+		}
+	}
+
+	/**
+	 * Returns the number of typos allowed in a query word of a given length.
+	 *
+	 * @param length The length of the word.
+	 * @return 0 for up to two characters, 1 for up to five, {@link #MAX_DISTANCE} beyond.
+	 */
+	static int allowedDistance(int length) {
+		return Math.min(MAX_DISTANCE, length / 3);
+	}
+
+	/**
+	 * Finds the assets whose name has, for every word of the query, a word within
+	 * the allowed number of typos of it.
+	 *
+	 * @param query The normalized query.
+	 * @return The matching ids, the fewest typos in total first, then in ascending order.
+	 */
+	int[] search(String query) {
+		Map<Integer, Integer> totals = null; // Matching id to its typos so far
+		for (String word : words(query)) {
+			Map<Integer, Integer> matches = new HashMap<>();
+			collect(word, allowedDistance(word.length()), matches);
+			if (totals == null) {
+				totals = matches;
+			} else {
+				Map<Integer, Integer> both = new HashMap<>();
+				for (Map.Entry<Integer, Integer> entry : totals.entrySet()) {
+					Integer distance = matches.get(entry.getKey());
+					if (distance != null) {
+						both.put(entry.getKey(), entry.getValue() + distance);
+					}
+				}
+				totals = both;
+			}
+			if (totals.isEmpty()) {
+				break;
+			}
+		}
+		if (totals == null) {
+			return new int[0];
+		}
+
+		// Rank by total typos; ids keep the order the assets were added within a rank
+		long[] ranked = new long[totals.size()];
+		int count = 0;
+		for (Map.Entry<Integer, Integer> entry : totals.entrySet()) {
+			ranked[count++] = ((long) entry.getValue() << 32) | entry.getKey();
+		}
+		Arrays.sort(ranked);
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = (int) ranked[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Gathers the ids of names with a word within a number of typos of a query word,
+	 * keeping the smallest distance found for each id.
+	 *
+	 * @param word The query word.
+	 * @param allowed The number of typos allowed.
+	 * @param matches Receives each matching id with its distance.
+	 */
+	private void collect(String word, int allowed, Map<Integer, Integer> matches) {
+		if (root == null) {
+			return;
+		}
+		List<Node> pending = new ArrayList<>();
+		pending.add(root);
+		Pattern pattern = new Pattern(); // A search measures with its own, so searches can run side by side
+		pattern.set(word);
+		while (!pending.isEmpty()) {
+			Node node = pending.remove(pending.size() - 1);
+			int distance = pattern.distanceTo(node.word);
+			if (distance <= allowed) {
+				for (int i = 0; i < node.ids.size(); i++) {
+					matches.merge(node.ids.get(i), distance, Math::min);
+				}
+			}
+			// Only children this close to the node can be close enough to the word
+			int last = Math.min(distance + allowed, node.children.length - 1);
+			for (int d = Math.max(distance - allowed, 1); d <= last; d++) {
+				if (node.children[d] != null) {
+					pending.add(node.children[d]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the node of a word, adding it to the tree if it is new.
+	 *
+	 * @param word The word.
+	 * @return The node holding the word.
+	 */
+	private Node node(String word) {
+		if (root == null) {
+			root = new Node(word);
+			return root;
+		}
+		Node node = root;
+		adding.set(word);
+		while (true) {
+			int distance = adding.distanceTo(node.word);
+			if (distance == 0) {
+				return node;
+			}
+			if (distance >= node.children.length) {
+				node.children = Arrays.copyOf(node.children, distance + 1);
+			}
+			if (node.children[distance] == null) {
+				node.children[distance] = new Node(word);
+				return node.children[distance];
+			}
+			node = node.children[distance];
+		}
+	}
+
+	/**
+	 * Splits a normalized name or query into its distinct words.
+	 *
+	 * @param text The normalized text.
+	 * @return The words.
+	 */
+	private static List<String> words(String text) {
+		List<String> result = new ArrayList<>();
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean space = i == text.length() || Character.isWhitespace(text.charAt(i));
+			if (!space && start < 0) {
+				start = i;
+			} else if (space && start >= 0) {
+				String word = text.substring(start, i);
+				if (!result.contains(word)) {
+					result.add(word);
+				}
+				start = -1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The Pattern class measures edit distances from one word to others. It keeps
+	 * the masks of the word and scratch rows between measurements, so it must not
+	 * be shared by searches running side by side.
+	 */
+	private static final class Pattern {
+		private final long[] asciiMasks = new long[128]; // Positions of each ASCII character in the pattern word
+		private final Map<Character, Long> otherMasks = new HashMap<>(); // Positions of other characters
+		private String pattern = ""; // Word the masks describe
+		private int[] previousRow = new int[16]; // Scratch rows for patterns too long for the masks
+		private int[] currentRow = new int[16];
+
+		/**
+		 * Prepares the character masks of the word that the following distances are
+		 * measured from. Bit i of a character's mask is set when the character occurs
+		 * at position i of the word.
+		 *
+		 * @param word The word.
+		 */
+		void set(String word) {
+			for (int i = 0; i < pattern.length() && i < 64; i++) {
+				char c = pattern.charAt(i);
+				if (c < 128) {
+					asciiMasks[c] = 0;
+				}
+			}
+			otherMasks.clear();
+			pattern = word;
+			for (int i = 0; i < word.length() && i < 64; i++) {
+				char c = word.charAt(i);
+				if (c < 128) {
+					asciiMasks[c] |= 1L << i;
+				} else {
+					otherMasks.merge(c, 1L << i, (x, y) -> x | y);
+				}
+			}
+		}
+
+		/**
+		 * Computes the Levenshtein distance from the pattern word to another word: the
+		 * fewest single character insertions, deletions and substitutions turning one
+		 * into the other. Words of up to 64 characters are compared 64 cells of the
+		 * distance table at a time, following Myers' bit-vector algorithm as
+		 * formulated by Hyyro; longer ones fill the table a cell at a time.
+		 *
+		 * @param text The other word.
+		 * @return The edit distance.
+		 */
+		int distanceTo(String text) {
+			int m = pattern.length();
+			if (m == 0) {
+				return text.length();
+			}
+			if (m > 64) {
+				return distance(pattern, text);
+			}
+			long last = 1L << (m - 1);
+			long positive = -1L; // Vertical deltas of +1 in the current column
+			long negative = 0L; // Vertical deltas of -1 in the current column
+			int score = m;
+			for (int j = 0; j < text.length(); j++) {
+				char c = text.charAt(j);
+				long equal;
+				if (c < 128) {
+					equal = asciiMasks[c];
+				} else {
+					Long mask = otherMasks.get(c);
+					equal = mask != null ? mask : 0L;
+				}
+				long xv = equal | negative;
+				long xh = (((equal & positive) + positive) ^ positive) | equal;
+				long horizontalPositive = negative | ~(xh | positive);
+				long horizontalNegative = positive & xh;
+				if ((horizontalPositive & last) != 0) {
+					score++;
+				} else if ((horizontalNegative & last) != 0) {
+					score--;
+				}
+				horizontalPositive = (horizontalPositive << 1) | 1; // The top row grows by one per character
+				horizontalNegative <<= 1;
+				positive = horizontalNegative | ~(xv | horizontalPositive);
+				negative = horizontalPositive & xv;
+			}
+			return score;
+		}
+
+		/**
+		 * Computes the Levenshtein distance between two words one table cell at a time.
+		 *
+		 * @param a The first word.
+		 * @param b The second word.
+		 * @return The edit distance.
+		 */
+		private int distance(String a, String b) {
+			if (b.length() + 1 > previousRow.length) {
+				previousRow = new int[b.length() + 1];
+				currentRow = new int[b.length() + 1];
+			}
+			int[] previous = previousRow;
+			int[] current = currentRow;
+			for (int j = 0; j <= b.length(); j++) {
+				previous[j] = j;
+			}
+			for (int i = 1; i <= a.length(); i++) {
+				current[0] = i;
+				char c = a.charAt(i - 1);
+				for (int j = 1; j <= b.length(); j++) {
+					int substitute = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+					current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+				}
+				int[] swap = previous;
+				previous = current;
+				current = swap;
+			}
+			return previous[b.length()];
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package application;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The HeapAssetRecords class keeps asset records in primitive arrays on the Java
+ * heap, one array per field, with the names and descriptions of every slot
+ * packed into one byte array. A slot costs a few dozen bytes plus its text and
+ * no objects of its own.
+ */
+class HeapAssetRecords implements AssetRecords {
+	private int[] categoryCodes = new int[16]; // Category code by slot
+	private int[] locationCodes = new int[16]; // Location code by slot
+	private int[] purchaseDays = new int[16]; // Purchase date as epoch day by slot
+	private int[] warrantyDays = new int[16]; // Warranty expiration as epoch day by slot
+	private long[] valueCents = new long[16]; // Purchased value in cents by slot
+	private byte[] valueFormats = new byte[16]; // Purchased value format by slot
+	private int[] textStarts = new int[16]; // Offset of the name, followed by the description, in text
+	private int[] nameLengths = new int[16]; // Length of the name in bytes, or NO_TEXT
+	private int[] descriptionLengths = new int[16]; // Length of the description in bytes, or NO_TEXT
+	private byte[] text = new byte[1024]; // Names and descriptions of every slot
+	private int textSize; // Bytes of text in use
+	private int wastedText; // Bytes of text left behind by replaced records and released slots
+	private final BitSet released = new BitSet(); // Slots of removed assets, whose text the next compaction drops
+	private int slots; // Number of slots written
+
+	@Override
+	public void write(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents,
+			byte valueFormat, String name, String description) {
+		writeFields(slot, category, location, purchaseDay, warrantyDay, cents, valueFormat);
+		nameLengths[slot] = appendText(name);
+		descriptionLengths[slot] = appendText(description);
+		compactIfWasteful();
+	}
+
+	@Override
+	public void write(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents,
+			byte valueFormat, ByteBuffer source, int nameStart, int nameLength, int descriptionStart,
+			int descriptionLength) {
+		writeFields(slot, category, location, purchaseDay, warrantyDay, cents, valueFormat);
+		ensureText(nameLength + descriptionLength);
+		source.get(nameStart, text, textSize, nameLength);
+		source.get(descriptionStart, text, textSize + nameLength, descriptionLength);
+		textSize += nameLength + descriptionLength;
+		nameLengths[slot] = nameLength;
+		descriptionLengths[slot] = descriptionLength;
+		compactIfWasteful();
+	}
+
+	/**
+	 * Writes the fixed-size fields of a slot and marks where its text starts.
+	 *
+	 * @param slot The slot, at most the number of slots written so far.
+	 * @param category The category code.
+	 * @param location The location code.
+	 * @param purchaseDay The purchase date as an epoch day.
+	 * @param warrantyDay The warranty expiration as an epoch day.
+	 * @param cents The purchased value in cents.
+	 * @param valueFormat How the purchased value text is rebuilt from the cents.
+	 */
+	private void writeFields(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents,
+			byte valueFormat) {
+		if (slot == slots) {
+			if (slots == categoryCodes.length) {
+				grow();
+			}
+			slots++;
+		} else {
+			wastedText += textLength(slot);
+		}
+		categoryCodes[slot] = category;
+		locationCodes[slot] = location;
+		purchaseDays[slot] = purchaseDay;
+		warrantyDays[slot] = warrantyDay;
+		valueCents[slot] = cents;
+		valueFormats[slot] = valueFormat;
+		textStarts[slot] = textSize;
+	}
+
+	@Override
+	public int categoryCode(int slot) {
+		return categoryCodes[slot];
+	}
+
+	@Override
+	public int locationCode(int slot) {
+		return locationCodes[slot];
+	}
+
+	@Override
+	public int purchaseDay(int slot) {
+		return purchaseDays[slot];
+	}
+
+	@Override
+	public int warrantyDay(int slot) {
+		return warrantyDays[slot];
+	}
+
+	@Override
+	public long valueCents(int slot) {
+		return valueCents[slot];
+	}
+
+	@Override
+	public byte valueFormat(int slot) {
+		return valueFormats[slot];
+	}
+
+	@Override
+	public String name(int slot) {
+		int length = nameLengths[slot];
+		return length == NO_TEXT ? null : new String(text, textStarts[slot], length, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String description(int slot) {
+		int length = descriptionLengths[slot];
+		int start = textStarts[slot] + Math.max(nameLengths[slot], 0);
+		return length == NO_TEXT ? null : new String(text, start, length, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void release(int slot) {
+		if (!released.get(slot)) {
+			released.set(slot);
+			wastedText += textLength(slot);
+		}
+	}
+
+	@Override
+	public void clear() {
+		slots = 0;
+		textSize = 0;
+		wastedText = 0;
+		released.clear();
+	}
+
+	@Override
+	public AssetRecords copy(int slots) {
+		HeapAssetRecords copy = new HeapAssetRecords();
+		copy.categoryCodes = Arrays.copyOf(categoryCodes, slots);
+		copy.locationCodes = Arrays.copyOf(locationCodes, slots);
+		copy.purchaseDays = Arrays.copyOf(purchaseDays, slots);
+		copy.warrantyDays = Arrays.copyOf(warrantyDays, slots);
+		copy.valueCents = Arrays.copyOf(valueCents, slots);
+		copy.valueFormats = Arrays.copyOf(valueFormats, slots);
+		copy.textStarts = Arrays.copyOf(textStarts, slots);
+		copy.nameLengths = Arrays.copyOf(nameLengths, slots);
+		copy.descriptionLengths = Arrays.copyOf(descriptionLengths, slots);
+		copy.text = Arrays.copyOf(text, textSize);
+		copy.textSize = textSize;
+		copy.wastedText = wastedText;
+		copy.released.or(released.get(0, slots));
+		copy.slots = slots;
+		return copy;
+	}
+
+	@Override
+	public long heapBytes() {
+		return categoryCodes.length * 37L + text.length; // Seven int, one long and one byte column
+	}
+
+	@Override
+	public long offHeapBytes() {
+		return 0;
+	}
+
+	/**
+	 * Appends a string to the text array as UTF-8.
+	 *
+	 * @param value The string, or null.
+	 * @return The number of bytes appended, or NO_TEXT for null.
+	 */
+	private int appendText(String value) {
+		if (value == null) {
+			return NO_TEXT;
+		}
+		int length = value.length();
+		ensureText(length);
+		// Plain ASCII, the common case, is copied without encoding into a temporary array
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x80) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				ensureText(bytes.length);
+				System.arraycopy(bytes, 0, text, textSize, bytes.length);
+				textSize += bytes.length;
+				return bytes.length;
+			}
+			text[textSize + i] = (byte) c;
+		}
+		textSize += length;
+		return length;
+	}
+
+	/**
+	 * Makes room for more bytes of text.
+	 *
+	 * @param length The number of bytes to make room for.
+	 */
+	private void ensureText(int length) {
+		if (textSize + length > text.length) {
+			text = Arrays.copyOf(text, Math.max(textSize + length, text.length * 2));
+		}
+	}
+
+	/**
+	 * Returns the bytes of text a slot takes.
+	 *
+	 * @param slot The slot.
+	 * @return The length of the name and description together.
+	 */
+	private int textLength(int slot) {
+		return Math.max(nameLengths[slot], 0) + Math.max(descriptionLengths[slot], 0);
+	}
+
+	/**
+	 * Compacts the text once replaced records and released slots have left more than
+	 * half of it unused.
+	 */
+	private void compactIfWasteful() {
+		if (wastedText > textSize / 2 && wastedText > 1 << 20) {
+			compactText();
+		}
+	}
+
+	/**
+	 * Copies the text of every slot into a new array, dropping what replaced records
+	 * left behind and the text of released slots, which reads as missing from then on.
+	 */
+	private void compactText() {
+		byte[] compacted = new byte[Math.max(1024, (textSize - wastedText) * 3 / 2)];
+		int position = 0;
+		for (int slot = 0; slot < slots; slot++) {
+			if (released.get(slot)) {
+				nameLengths[slot] = NO_TEXT;
+				descriptionLengths[slot] = NO_TEXT;
+			}
+			int length = textLength(slot);
+			System.arraycopy(text, textStarts[slot], compacted, position, length);
+			textStarts[slot] = position;
+			position += length;
+		}
+		text = compacted;
+		textSize = position;
+		wastedText = 0;
+	}
+
+	/**
+	 * Doubles the capacity of every column.
+	 */
+	private void grow() {
+		int capacity = Math.max(16, slots * 2);
+		categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+		locationCodes = Arrays.copyOf(locationCodes, capacity);
+		purchaseDays = Arrays.copyOf(purchaseDays, capacity);
+		warrantyDays = Arrays.copyOf(warrantyDays, capacity);
+		valueCents = Arrays.copyOf(valueCents, capacity);
+		valueFormats = Arrays.copyOf(valueFormats, capacity);
+		textStarts = Arrays.copyOf(textStarts, capacity);
+		nameLengths = Arrays.copyOf(nameLengths, capacity);
+		descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+	}
+}
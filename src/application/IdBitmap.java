@@ -0,0 +1,514 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * The IdBitmap class is a compressed set of asset ids. Ids are split into chunks
+ * of 65536 by their upper 16 bits, and each chunk stores its lower 16 bits either
+ * as a sorted char array while it holds few ids, or as a 65536-bit bitmap once it
+ * holds more than {@link #ARRAY_LIMIT}; each form takes at most 8 KB per chunk.
+ * Intersections, unions and differences work chunk by chunk, with bitmap
+ * chunks combined a 64-bit word at a time. The layout follows Roaring bitmaps.
+ */
+class IdBitmap {
+	static final int ARRAY_LIMIT = 4096; // Most ids a chunk keeps as a sorted array
+	private static final int BITMAP_WORDS = 1024; // Words in a bitmap chunk
+	private static final int AND = 0; // Operations of combine
+	private static final int OR = 1;
+	private static final int AND_NOT = 2;
+
+	private int[] keys = new int[0]; // Upper 16 bits of each chunk, ascending
+	private Object[] chunks = new Object[0]; // Each chunk: char[] sorted lower bits, or long[] bitmap
+	private int[] counts = new int[0]; // Number of ids in each chunk
+	private int chunkCount; // Number of chunks in use
+	private int size; // Number of ids in the set
+
+	/**
+	 * Adds an id to the set.
+	 *
+	 * @param id The id, not negative.
+	 * @return true if the id was not in the set yet.
+	 */
+	boolean add(int id) {
+		int index = Arrays.binarySearch(keys, 0, chunkCount, id >>> 16);
+		if (index < 0) {
+			index = -index - 1;
+			insertChunk(index, id >>> 16, new char[4], 0);
+		}
+		char low = (char) id;
+		Object chunk = chunks[index];
+		if (chunk instanceof long[]) {
+			long[] bits = (long[]) chunk;
+			long mask = 1L << low;
+			if ((bits[low >>> 6] & mask) != 0) {
+				return false;
+			}
+			bits[low >>> 6] |= mask;
+		} else {
+			char[] values = (char[]) chunk;
+			int count = counts[index];
+			int position = Arrays.binarySearch(values, 0, count, low);
+			if (position >= 0) {
+				return false;
+			}
+			position = -position - 1;
+			if (count == ARRAY_LIMIT) {
+				long[] bits = toBitmap(values, count);
+				bits[low >>> 6] |= 1L << low;
+				chunks[index] = bits;
+			} else {
+				if (count == values.length) {
+					values = Arrays.copyOf(values, Math.min(count * 2, ARRAY_LIMIT));
+					chunks[index] = values;
+				}
+				System.arraycopy(values, position, values, position + 1, count - position);
+				values[position] = low;
+			}
+		}
+		counts[index]++;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes an id from the set.
+	 *
+	 * @param id The id.
+	 * @return true if the id was in the set.
+	 */
+	boolean remove(int id) {
+		int index = Arrays.binarySearch(keys, 0, chunkCount, id >>> 16);
+		if (index < 0) {
+			return false;
+		}
+		char low = (char) id;
+		Object chunk = chunks[index];
+		if (chunk instanceof long[]) {
+			long[] bits = (long[]) chunk;
+			long mask = 1L << low;
+			if ((bits[low >>> 6] & mask) == 0) {
+				return false;
+			}
+			bits[low >>> 6] &= ~mask;
+			if (counts[index] - 1 == ARRAY_LIMIT) {
+				chunks[index] = toArray(bits, ARRAY_LIMIT); // Sparse enough for the smaller form again
+			}
+		} else {
+			char[] values = (char[]) chunk;
+			int count = counts[index];
+			int position = Arrays.binarySearch(values, 0, count, low);
+			if (position < 0) {
+				return false;
+			}
+			System.arraycopy(values, position + 1, values, position, count - position - 1);
+		}
+		size--;
+		if (--counts[index] == 0) {
+			removeChunk(index);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether an id is in the set.
+	 *
+	 * @param id The id.
+	 * @return true if the id is in the set.
+	 */
+	boolean contains(int id) {
+		int index = Arrays.binarySearch(keys, 0, chunkCount, id >>> 16);
+		if (index < 0) {
+			return false;
+		}
+		char low = (char) id;
+		Object chunk = chunks[index];
+		if (chunk instanceof long[]) {
+			return (((long[]) chunk)[low >>> 6] & (1L << low)) != 0;
+		}
+		return Arrays.binarySearch((char[]) chunk, 0, counts[index], low) >= 0;
+	}
+
+	/**
+	 * Returns the number of ids in the set.
+	 *
+	 * @return The cardinality.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Lists the ids of the set.
+	 *
+	 * @return The ids in ascending order.
+	 */
+	int[] toArray() {
+		int[] result = new int[size];
+		int count = 0;
+		for (int i = 0; i < chunkCount; i++) {
+			int high = keys[i] << 16;
+			Object chunk = chunks[i];
+			if (chunk instanceof long[]) {
+				long[] bits = (long[]) chunk;
+				for (int word = 0; word < BITMAP_WORDS; word++) {
+					for (long w = bits[word]; w != 0; w &= w - 1) {
+						result[count++] = high | (word << 6) | Long.numberOfTrailingZeros(w);
+					}
+				}
+			} else {
+				char[] values = (char[]) chunk;
+				for (int j = 0; j < counts[i]; j++) {
+					result[count++] = high | values[j];
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Estimates the heap memory the set occupies, including array headers.
+	 *
+	 * @return The size in bytes.
+	 */
+	long memoryBytes() {
+		long bytes = 16 + 3 * 16L + keys.length * 4L + chunks.length * 4L + counts.length * 4L;
+		for (int i = 0; i < chunkCount; i++) {
+			Object chunk = chunks[i];
+			bytes += 16 + (chunk instanceof long[] ? BITMAP_WORDS * 8L : ((char[]) chunk).length * 2L);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the ids in both sets.
+	 *
+	 * @param a The first set.
+	 * @param b The second set.
+	 * @return A new set with the intersection.
+	 */
+	static IdBitmap and(IdBitmap a, IdBitmap b) {
+		IdBitmap result = new IdBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.chunkCount && j < b.chunkCount) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (a.keys[i] > b.keys[j]) {
+				j++;
+			} else {
+				result.appendChunk(a.keys[i], combine(a.chunks[i], a.counts[i], b.chunks[j], b.counts[j], AND));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the ids in either set.
+	 *
+	 * @param a The first set.
+	 * @param b The second set.
+	 * @return A new set with the union.
+	 */
+	static IdBitmap or(IdBitmap a, IdBitmap b) {
+		IdBitmap result = new IdBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < a.chunkCount || j < b.chunkCount) {
+			if (j == b.chunkCount || (i < a.chunkCount && a.keys[i] < b.keys[j])) {
+				result.appendChunk(a.keys[i], copy(a.chunks[i], a.counts[i]));
+				i++;
+			} else if (i == a.chunkCount || a.keys[i] > b.keys[j]) {
+				result.appendChunk(b.keys[j], copy(b.chunks[j], b.counts[j]));
+				j++;
+			} else {
+				result.appendChunk(a.keys[i], combine(a.chunks[i], a.counts[i], b.chunks[j], b.counts[j], OR));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the ids in the first set but not in the second.
+	 *
+	 * @param a The set to take ids from.
+	 * @param b The set of ids to leave out.
+	 * @return A new set with the difference.
+	 */
+	static IdBitmap andNot(IdBitmap a, IdBitmap b) {
+		IdBitmap result = new IdBitmap();
+		int j = 0;
+		for (int i = 0; i < a.chunkCount; i++) {
+			while (j < b.chunkCount && b.keys[j] < a.keys[i]) {
+				j++;
+			}
+			if (j < b.chunkCount && b.keys[j] == a.keys[i]) {
+				result.appendChunk(a.keys[i], combine(a.chunks[i], a.counts[i], b.chunks[j], b.counts[j], AND_NOT));
+			} else {
+				result.appendChunk(a.keys[i], copy(a.chunks[i], a.counts[i]));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the ids in both sets without building the intersection.
+	 *
+	 * @param a The first set.
+	 * @param b The second set.
+	 * @return The size of the intersection.
+	 */
+	static int andCount(IdBitmap a, IdBitmap b) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.chunkCount && j < b.chunkCount) {
+			if (a.keys[i] < b.keys[j]) {
+				i++;
+			} else if (a.keys[i] > b.keys[j]) {
+				j++;
+			} else {
+				Object x = a.chunks[i];
+				Object y = b.chunks[j];
+				if (x instanceof long[] && y instanceof long[]) {
+					long[] p = (long[]) x;
+					long[] q = (long[]) y;
+					for (int word = 0; word < BITMAP_WORDS; word++) {
+						count += Long.bitCount(p[word] & q[word]);
+					}
+				} else if (x instanceof long[]) {
+					count += countIn((char[]) y, b.counts[j], (long[]) x);
+				} else if (y instanceof long[]) {
+					count += countIn((char[]) x, a.counts[i], (long[]) y);
+				} else {
+					count += intersect((char[]) x, a.counts[i], (char[]) y, b.counts[j], null);
+				}
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Combines two chunks with the same upper bits.
+	 *
+	 * @param x The first chunk.
+	 * @param xCount The number of ids in the first chunk.
+	 * @param y The second chunk.
+	 * @param yCount The number of ids in the second chunk.
+	 * @param operation AND, OR or AND_NOT.
+	 * @return The resulting chunk, in whichever form suits its size, or null if it is empty.
+	 */
+	private static Object combine(Object x, int xCount, Object y, int yCount, int operation) {
+		long[] p = x instanceof long[] ? (long[]) x : null;
+		long[] q = y instanceof long[] ? (long[]) y : null;
+		if (operation == AND && p == null && q == null) {
+			char[] values = new char[Math.min(xCount, yCount)];
+			int count = intersect((char[]) x, xCount, (char[]) y, yCount, values);
+			return count == 0 ? null : Arrays.copyOf(values, count);
+		}
+		if (operation == AND && (p == null || q == null)) {
+			// Filter the array chunk through the bitmap chunk
+			char[] values = p == null ? (char[]) x : (char[]) y;
+			long[] bits = p == null ? q : p;
+			int count = p == null ? xCount : yCount;
+			char[] kept = new char[count];
+			int keptCount = 0;
+			for (int k = 0; k < count; k++) {
+				if ((bits[values[k] >>> 6] & (1L << values[k])) != 0) {
+					kept[keptCount++] = values[k];
+				}
+			}
+			return keptCount == 0 ? null : Arrays.copyOf(kept, keptCount);
+		}
+		if (operation == AND_NOT && p == null) {
+			char[] values = (char[]) x;
+			char[] kept = new char[xCount];
+			int keptCount = 0;
+			for (int k = 0; k < xCount; k++) {
+				boolean inY = q != null ? (q[values[k] >>> 6] & (1L << values[k])) != 0
+						: Arrays.binarySearch((char[]) y, 0, yCount, values[k]) >= 0;
+				if (!inY) {
+					kept[keptCount++] = values[k];
+				}
+			}
+			return keptCount == 0 ? null : Arrays.copyOf(kept, keptCount);
+		}
+		// Word-wise on bitmaps, widening array chunks first
+		long[] left = p != null ? p : toBitmap((char[]) x, xCount);
+		long[] right = q != null ? q : toBitmap((char[]) y, yCount);
+		long[] bits = new long[BITMAP_WORDS];
+		int count = 0;
+		for (int word = 0; word < BITMAP_WORDS; word++) {
+			long value = operation == AND ? left[word] & right[word]
+					: operation == OR ? left[word] | right[word] : left[word] & ~right[word];
+			bits[word] = value;
+			count += Long.bitCount(value);
+		}
+		if (count == 0) {
+			return null;
+		}
+		return count > ARRAY_LIMIT ? bits : toArray(bits, count);
+	}
+
+	/**
+	 * Intersects two sorted arrays of lower bits.
+	 *
+	 * @param x The first array.
+	 * @param xCount The number of values used in the first array.
+	 * @param y The second array.
+	 * @param yCount The number of values used in the second array.
+	 * @param into Receives the common values, or null to only count them.
+	 * @return The number of common values.
+	 */
+	private static int intersect(char[] x, int xCount, char[] y, int yCount, char[] into) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < xCount && j < yCount) {
+			if (x[i] < y[j]) {
+				i++;
+			} else if (x[i] > y[j]) {
+				j++;
+			} else {
+				if (into != null) {
+					into[count] = x[i];
+				}
+				count++;
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the values of an array chunk that are set in a bitmap chunk.
+	 *
+	 * @param values The array chunk.
+	 * @param count The number of values used.
+	 * @param bits The bitmap chunk.
+	 * @return The number of values set.
+	 */
+	private static int countIn(char[] values, int count, long[] bits) {
+		int result = 0;
+		for (int k = 0; k < count; k++) {
+			if ((bits[values[k] >>> 6] & (1L << values[k])) != 0) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Widens an array chunk into a bitmap chunk.
+	 *
+	 * @param values The array chunk.
+	 * @param count The number of values used.
+	 * @return The bitmap.
+	 */
+	private static long[] toBitmap(char[] values, int count) {
+		long[] bits = new long[BITMAP_WORDS];
+		for (int k = 0; k < count; k++) {
+			bits[values[k] >>> 6] |= 1L << values[k];
+		}
+		return bits;
+	}
+
+	/**
+	 * Narrows a bitmap chunk into an array chunk.
+	 *
+	 * @param bits The bitmap chunk.
+	 * @param count The number of bits set.
+	 * @return The sorted values.
+	 */
+	private static char[] toArray(long[] bits, int count) {
+		char[] values = new char[count];
+		int k = 0;
+		for (int word = 0; word < BITMAP_WORDS; word++) {
+			for (long w = bits[word]; w != 0; w &= w - 1) {
+				values[k++] = (char) ((word << 6) | Long.numberOfTrailingZeros(w));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Copies a chunk, trimming an array chunk to its values.
+	 *
+	 * @param chunk The chunk.
+	 * @param count The number of ids in the chunk.
+	 * @return The copy.
+	 */
+	private static Object copy(Object chunk, int count) {
+		return chunk instanceof long[] ? ((long[]) chunk).clone() : Arrays.copyOf((char[]) chunk, count);
+	}
+
+	/**
+	 * Appends a chunk whose upper bits are above every chunk so far.
+	 *
+	 * @param key The upper bits.
+	 * @param chunk The chunk, or null to append nothing.
+	 */
+	private void appendChunk(int key, Object chunk) {
+		if (chunk != null) {
+			int count = chunk instanceof long[] ? bitCount((long[]) chunk) : ((char[]) chunk).length;
+			insertChunk(chunkCount, key, chunk, count);
+			size += count;
+		}
+	}
+
+	/**
+	 * Inserts a chunk at a position of the chunk arrays.
+	 *
+	 * @param index The position.
+	 * @param key The upper bits.
+	 * @param chunk The chunk.
+	 * @param count The number of ids in the chunk.
+	 */
+	private void insertChunk(int index, int key, Object chunk, int count) {
+		if (chunkCount == keys.length) {
+			int capacity = Math.max(4, chunkCount * 2);
+			keys = Arrays.copyOf(keys, capacity);
+			chunks = Arrays.copyOf(chunks, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+		}
+		System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+		System.arraycopy(chunks, index, chunks, index + 1, chunkCount - index);
+		System.arraycopy(counts, index, counts, index + 1, chunkCount - index);
+		keys[index] = key;
+		chunks[index] = chunk;
+		counts[index] = count;
+		chunkCount++;
+	}
+
+	/**
+	 * Removes an empty chunk.
+	 *
+	 * @param index The position of the chunk.
+	 */
+	private void removeChunk(int index) {
+		System.arraycopy(keys, index + 1, keys, index, chunkCount - index - 1);
+		System.arraycopy(chunks, index + 1, chunks, index, chunkCount - index - 1);
+		System.arraycopy(counts, index + 1, counts, index, chunkCount - index - 1);
+		chunks[--chunkCount] = null;
+	}
+
+	/**
+	 * Counts the bits set in a bitmap chunk.
+	 *
+	 * @param bits The bitmap chunk.
+	 * @return The number of bits set.
+	 */
+	private static int bitCount(long[] bits) {
+		int count = 0;
+		for (long word : bits) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+}
@@ -0,0 +1,100 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * The IdSet class is a sorted set of asset ids stored in a primitive int array.
+ * New assets receive the highest id so far, which makes adding them an append;
+ * other insertions and removals shift the ids after them.
+ */
+class IdSet {
+	private int[] ids = new int[4]; // Ids in ascending order; only the first size entries are used
+	private int size; // Number of ids in the set
+
+	/**
+	 * Adds an id to the set.
+	 *
+	 * @param id The id to add.
+	 * @return true if the id was not in the set yet.
+	 */
+	boolean add(int id) {
+		if (size > 0 && ids[size - 1] < id) {
+			ensureCapacity();
+			ids[size++] = id; // Common case: the newest asset
+			return true;
+		}
+		int index = Arrays.binarySearch(ids, 0, size, id);
+		if (index >= 0) {
+			return false;
+		}
+		index = -index - 1;
+		ensureCapacity();
+		System.arraycopy(ids, index, ids, index + 1, size - index);
+		ids[index] = id;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes an id from the set.
+	 *
+	 * @param id The id to remove.
+	 * @return true if the id was in the set.
+	 */
+	boolean remove(int id) {
+		int index = Arrays.binarySearch(ids, 0, size, id);
+		if (index < 0) {
+			return false;
+		}
+		System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Checks whether an id is in the set.
+	 *
+	 * @param id The id to look for.
+	 * @return true if the id is in the set.
+	 */
+	boolean contains(int id) {
+		return Arrays.binarySearch(ids, 0, size, id) >= 0;
+	}
+
+	/**
+	 * Returns the id at a position in ascending order.
+	 *
+	 * @param index The position.
+	 * @return The id.
+	 */
+	int get(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * Copies the ids into a new array.
+	 *
+	 * @return The ids in ascending order.
+	 */
+	int[] toArray() {
+		return Arrays.copyOf(ids, size);
+	}
+
+	/**
+	 * Returns the number of ids in the set.
+	 *
+	 * @return The size of the set.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Grows the array when it is full.
+	 */
+	private void ensureCapacity() {
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+	}
+}
@@ -1,33 +1,18 @@
 package application;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -36,14 +21,21 @@ import javafx.stage.Stage;
  * Controller class for the NewCategory.fxml file. This class handles the logic
  * and functionality of the UI components defined in the FXML file.
  */
-public class ListAssetbyExpired {
-	final String filePath_assets = "assets.csv";
-	private List<AssetInfo> assets = new ArrayList<AssetInfo>();
+public class ListAssetbyExpired implements Navigator.Refreshable {
+	private List<AssetInfo> assets = new ArrayList<AssetInfo>(); // Shared view of the repository's assets
 	private AssetInfo selectedAsset;
+	private TableLoader loader; // Loads the assets and looks up matches off the JavaFX Application Thread
+	private LocalDate shownDate; // Date the listed warranties were judged on
 	@FXML
 	TextField assetName; // Text field for entering category name
 	@FXML
 	TableView<AssetInfo> tableView = new TableView<>(); //TableView for displaying asset information.
+
+	@FXML private ComboBox<String> horizonComboBox; // Dropdown box for choosing expired or expiring-soon assets
+
+	// Choices of the horizon dropdown and the days ahead each one covers, 0 meaning already expired
+	private static final String[] HORIZONS = { "Already expired", "Expiring in 30 days", "Expiring in 60 days", "Expiring in 90 days" };
+	private static final int[] HORIZON_DAYS = { 0, 30, 60, 90 };
 	
 	@FXML
 	TableColumn<AssetInfo, String> name; //TableColumn for displaying asset names
@@ -65,111 +57,77 @@ public class ListAssetbyExpired {
 	@FXML
 	TableColumn<AssetInfo, String> warrantyExpirationDate; //TableColumn for displaying asset warranty expiration dates
 
-	ObservableList<AssetInfo> list = FXCollections.observableArrayList(assets); //ObservableList for storing and managing asset information
+	PagedAssetList list = new PagedAssetList(assets); //ObservableList for storing and managing asset information; each search swaps in its result
 
 	/**
 	 * Initializes the controller class. This method is automatically called after
 	 * the FXML file has been loaded.
 	 */
 	public void initialize() {
-		loadAssetsFromCSV();
-		
+		loader = new TableLoader(tableView);
 
-		name.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("name"));
-		category.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("category"));
-		locationName.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("location"));
-		purchaseDate.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("purchaseDate"));
-		description.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("description"));
-		purchaseValue.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("purchasedValue"));
-		warrantyExpirationDate.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("warrantyExpirationDate"));
+		// Reads each column through its getter, without reflection
+		AssetColumns.bind(tableView, name, category, locationName, purchaseDate, description, purchaseValue, warrantyExpirationDate);
 		
 
 		tableView.setItems(list);
-		
-		searchAssetsByExpired();
+		horizonComboBox.getItems().setAll(HORIZONS);
 	}
-	
+
 	/**
-	 * Loads assets from a CSV file.
-	 * 
-	 * If the file exists, it reads each line from the file and processes it to create AssetInfo objects.
-	 * If the file does not exist, an error message is printed.
+	 * Looks up the assets when the page is first shown.
 	 */
-	public void loadAssetsFromCSV() {
-		// Path to the CSV file
-
-		// Check if the file exists
-		if (Files.exists(Paths.get(filePath_assets))) {
-			try {
-				// Read all lines from the file and process each line to create AssetInfo
-				// objects
-
-				assets = Files.readAllLines(Paths.get(filePath_assets)).stream().map(line -> line.split(","))
-						.map(assetDetails -> parseAsset(assetDetails)).collect(Collectors.toList());
-
-			} catch (IOException e) {
-				System.err.println("Error reading CSV file: " + e.getMessage());
-			}
-		} else {
-			System.err.println("CSV file does not exist");
-		}
+	@Override
+	public void load() {
+		horizonComboBox.getSelectionModel().selectFirst(); // Fires the search, through the action of the box
 	}
-
-	// Helper method to parse a single asset entry from the CSV
+	
 	/**
-	 * Parses a single asset entry from the CSV file.
-	 *
-	 * @param assetDetails The array containing asset details to parse.
-	 * @return The parsed AssetInfo object.
+	 * Looks up the assets again when the page is shown again on a later day, or after
+	 * going home. Otherwise the edits made elsewhere already reached the table.
 	 */
-	private AssetInfo parseAsset(String[] assetDetails) {
-		AssetInfo asset = new AssetInfo();
-		asset.setName(assetDetails[0].trim());
-		asset.setCategory(assetDetails[1].trim());
-		asset.setLocation(assetDetails[2].trim());
-		asset.setPurchaseDate(parseDate(assetDetails[3].trim()));
-		asset.setDescription(assetDetails[4].trim());
-		asset.setPurchasedValue(assetDetails[5].trim());
-		asset.setWarrantyExpirationDate(parseDate(assetDetails[6].trim()));
-		return asset;
+	@Override
+	public void refresh() {
+		if (!LocalDate.now().equals(shownDate) || !list.isFollowing()) {
+			searchAssetsByExpired();
+		}
 	}
 
-	// Helper method to parse dates, handling "No date provided"
 	/**
-	 * Parses a date string into a LocalDate object.
-	 *
-	 * @param date The date string to parse.
-	 * @return The parsed LocalDate object, or null if the date string is "No date provided".
+	 * Loads the assets shared by the AssetRepository, which parses the CSV file
+	 * only once per run, and follows the changes made to them.
 	 */
-	private LocalDate parseDate(String date) {
-		if (date.equals("No date provided")) {
-			return null;
-		} else {
-			try {
-				return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
-			} catch (DateTimeParseException e) {
-				System.err.println("Error parsing date: " + e.getMessage());
-				return null;
-			}
-		}
+	public void loadAssets() {
+		AssetRepository repository = AssetRepository.getInstance();
+		assets = repository.getAssets();
+		list.follow(repository); // Adds, edits and deletes made on any screen reach the table
 	}
 
 	/**
-     * Handles the search action for assets by category.
+     * Handles the search action for assets by warranty state. Depending on the selected
+     * horizon it lists the assets whose warranty has already expired or the ones whose
+     * warranty expires within the next days, the earliest first.
      */
 	@FXML
 	public void searchAssetsByExpired() {
 		LocalDate cur = LocalDate.now(); // This gets today's date
-
-		ObservableList<AssetInfo> filteredAssets = FXCollections.observableArrayList();
-		for (AssetInfo asset : assets) {
-			System.out.println(asset.getName() + " : " + hasWarrantyExpired(cur, asset));
-			if (hasWarrantyExpired(cur, asset)) {
-				filteredAssets.add(asset);
+		int horizon = Math.max(horizonComboBox.getSelectionModel().getSelectedIndex(), 0);
+
+		// The first search also waits for the repository to parse the CSV file
+		list.searchStarted();
+		loader.load("Loading assets...", () -> {
+			loadAssets();
+			if (HORIZON_DAYS[horizon] == 0) {
+				return AssetRepository.getInstance().findExpiredAsOf(cur);
 			}
-		}
-		System.out.println("Number of matches: " + filteredAssets.size()); 
-		tableView.setItems(filteredAssets);
+			return AssetRepository.getInstance().findExpiringBetween(cur, cur.plusDays(HORIZON_DAYS[horizon]));
+		}, matches -> {
+			System.out.println("Number of matches: " + matches.size());
+			shownDate = cur;
+			// Assets added or edited later are judged the way the index looked these up
+			list.setSource(matches, HORIZON_DAYS[horizon] == 0 ? asset -> hasWarrantyExpired(cur, asset)
+					: asset -> expiresWithin(cur, HORIZON_DAYS[horizon], asset)); // Reports only the rows that changed
+		});
 	}
 	
 	/**
@@ -184,6 +142,20 @@ public class ListAssetbyExpired {
         }
         return false; // Return false if warrantyExpiration is null, implying no expiration date set
     }
+
+    /**
+     * Checks if the warranty of an asset expires between today and a number of days later,
+     * both included.
+     * 
+     * @param today The current date.
+     * @param days The number of days ahead.
+     * @param asset The asset whose warranty expiration date is to be checked.
+     * @return true if the warranty expires within the days, false otherwise.
+     */
+    static boolean expiresWithin(LocalDate today, int days, AssetInfo asset) {
+        LocalDate expiration = asset.getWarrantyExpirationLocalDate();
+        return expiration != null && !expiration.isBefore(today) && !expiration.isAfter(today.plusDays(days));
+    }
 	
 	public void openAsset() {
         AssetInfo selectedAsset = tableView.getSelectionModel().getSelectedItem();
@@ -228,63 +200,6 @@ public class ListAssetbyExpired {
 	}
 	
 
-	// Overwrites deleted asset results to CSV file
-	private void overWriteCSV() {
-		clearCSV();
-		for (AssetInfo itr : assets) {
-			saveAssetToCSV(itr);
-		}
-	}
-
-	// Clears the contents of the CSV file
-	public void clearCSV() {
-		// file path for the CSV file at instance variable
-		try {
-			// Write an empty list to the file, truncating it to zero size
-			Files.write(Paths.get(filePath_assets), Collections.emptyList(), StandardOpenOption.TRUNCATE_EXISTING);
-			// testing message
-			System.out.println("CSV file has been cleared.");
-		} catch (IOException e) {
-			// testing message
-			System.err.println("Error clearing the CSV file: " + e.getMessage());
-		}
-	}
-
-	/**
-     * Saves the asset information to the CSV file.
-     * 
-     * @param asset The asset to be saved.
-     */
-	private void saveAssetToCSV(AssetInfo asset) {
-		// file path for the CSV file at instance variable
-		try {
-			// Check if the file does not exist and create it if necessary
-			if (!Files.exists(Paths.get(filePath_assets))) {
-				Files.createFile(Paths.get(filePath_assets));
-			}
-			// Write the assets details to the CSV file
-			try (FileWriter fw = new FileWriter(filePath_assets, true);
-					BufferedWriter bw = new BufferedWriter(fw);
-					PrintWriter out = new PrintWriter(bw)) {
-				out.print(String.join(", ", asset.getName(), asset.getCategory(), asset.getLocation(),
-						asset.getPurchaseDate(), // != null ?
-													// asset.getPurchaseDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-													// : "",
-						asset.getDescription(), asset.getPurchasedValue(), asset.getWarrantyExpirationDate()// != null ?
-																											// asset.getWarrantyExpirationDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-																											// : ""
-				));
-				out.println();// Move to a new line in the file
-			} catch (IOException e) {
-				System.err.println("Error writing to CSV file: " + e.getMessage());// Handle possible I/O errors
-			}
-		} catch (IOException ex) {
-			System.err.println("An error occurred initializing the CSV file: " + ex.getMessage());// Handle file
-																									// creation errors
-		}
-	}
-
-	
 	/**
 	 * Edits the selected asset.
 	 * 
@@ -323,21 +238,11 @@ public class ListAssetbyExpired {
 	 */
 	@FXML
 	public void goHome() {
-		try {// Load the FXML file for the welcome page
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml"));
-			Parent root = loader.load();
-
-			// Get the stage from the current scene
+		loader.cancel();
+		list.stopFollowing(); // Looked up again when the page is shown again
+		try {
 			Stage stage = (Stage) tableView.getScene().getWindow();
-
-			// Set the new scene for the stage
-			Scene scene = new Scene(root);
-
-			// Set the title of the stage
-			stage.setTitle("Welcome to TrackWise");
-
-			stage.setScene(scene);
-			stage.show();
+			Navigator.show(stage, Navigator.WELCOME, "Welcome to TrackWise");
 		} catch (IOException e) {
 			e.printStackTrace();
 			// Handle the exception appropriately
@@ -352,21 +257,12 @@ public class ListAssetbyExpired {
 	 */
 	@FXML
 	private void editAssetPage() {
-			int index = assets.indexOf(selectedAsset);
+		loader.cancel();
 		try {
 			
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/EditAsset.fxml")); 
-			Parent root = loader.load(); // Loads the root element of the FXML file
-			
-			EditAssetController editAssetController = loader.getController();
-			editAssetController.initialize(assets, index);
-			
 			Stage stage = (Stage) tableView.getScene().getWindow();
-			Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-
-			stage.setScene(scene); // Sets the scene to the stage
-			stage.setTitle("Edit Asset"); // Sets the title of the stage
-			stage.show(); // Shows the stage
+			EditAssetController editAssetController = Navigator.show(stage, Navigator.EDIT_ASSET, "Edit Asset");
+			editAssetController.initialize(selectedAsset);
 		} catch (Exception e) {
 			e.printStackTrace();// Prints the stack trace if an exception occurs
 		}
@@ -1,34 +1,21 @@
 package application;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -37,15 +24,17 @@ import javafx.stage.Stage;
  * Controller class for the NewCategory.fxml file. This class handles the logic
  * and functionality of the UI components defined in the FXML file.
  */
-public class ListAssetbyLocation {
-	final String filePath_assets = "assets.csv";
-	private List<AssetInfo> assets = new ArrayList<AssetInfo>();
+public class ListAssetbyLocation implements Navigator.Refreshable {
+	private List<AssetInfo> assets = new ArrayList<AssetInfo>(); // Shared view of the repository's assets
 	private AssetInfo selectedAsset;
+	private TableLoader loader; // Loads the assets and looks up matches off the JavaFX Application Thread
+	private String shown; // Location whose assets are listed, or null before the first search
 	@FXML
 	TextField assetName; // Text field for entering category name
 	@FXML
 	TableView<AssetInfo> tableView = new TableView<>(); //TableView for displaying asset information.
 
+	@FXML private Label totalLabel; // Label for the total purchased value of the matches
 	@FXML private ComboBox<String> locationComboBox;// Dropdown box for categories defined
 	
 	@FXML
@@ -68,105 +57,81 @@ public class ListAssetbyLocation {
 	@FXML
 	TableColumn<AssetInfo, String> warrantyExpirationDate; //TableColumn for displaying asset warranty expiration dates
 
-	ObservableList<AssetInfo> list = FXCollections.observableArrayList(assets); //ObservableList for storing and managing asset information
+	PagedAssetList list = new PagedAssetList(assets); //ObservableList for storing and managing asset information; each search swaps in its result
 
 	/**
 	 * Initializes the controller class. This method is automatically called after
 	 * the FXML file has been loaded.
 	 */
 	public void initialize() {
-		loadAssetsFromCSV();
-		loadLocations();
-
-		name.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("name"));
-		category.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("category"));
-		locationName.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("location"));
-		purchaseDate.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("purchaseDate"));
-		description.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("description"));
-		purchaseValue.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("purchasedValue"));
-		warrantyExpirationDate.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("warrantyExpirationDate"));
+		loader = new TableLoader(tableView);
+
+		// Reads each column through its getter, without reflection
+		AssetColumns.bind(tableView, name, category, locationName, purchaseDate, description, purchaseValue, warrantyExpirationDate);
 		
 
 		tableView.setItems(list);
+		// Changes made on any screen that reach the table can change the total as well
+		list.addListener((ListChangeListener<AssetInfo>) change -> {
+			if (shown != null) {
+				showTotal(shown);
+			}
+		});
 	}
 	
 
     /**
-     * Loads location options from a CSV file into the location combo box.
+     * Reads the location options for the location combo box from a CSV file.
+     *
+     * @return The locations, or an empty list if the file cannot be read.
      */
 
-    private void loadLocations() {
+    private List<String> readLocations() {
         try {
         	// Reads all lines from locations.csv and collects them into a List
-            List<String> list = Files.readAllLines(Paths.get("locations.csv")).stream().collect(Collectors.toList());
-            locationComboBox.getItems().setAll(list);// Sets items in locationComboBox
+            return Files.readAllLines(Paths.get("locations.csv")).stream().collect(Collectors.toList());
         } catch (IOException e) {
             System.err.println("Error loading locations: " + e.getMessage());
+            return new ArrayList<>();
         }
     }
-    /**
-     * Loads assets from a CSV file.
-     * 
-     * If the file exists, it reads each line from the file and processes it to create AssetInfo objects.
-     * If the file does not exist, an error message is printed.
-     */
-	public void loadAssetsFromCSV() {
-		// Path to the CSV file
-
-		// Check if the file exists
-		if (Files.exists(Paths.get(filePath_assets))) {
-			try {
-				// Read all lines from the file and process each line to create AssetInfo
-				// objects
-
-				assets = Files.readAllLines(Paths.get(filePath_assets)).stream().map(line -> line.split(","))
-						.map(assetDetails -> parseAsset(assetDetails)).collect(Collectors.toList());
-
-			} catch (IOException e) {
-				System.err.println("Error reading CSV file: " + e.getMessage());
-			}
-		} else {
-			System.err.println("CSV file does not exist");
-		}
+	/**
+	 * Loads the assets and the locations when the page is first shown. The first screen
+	 * opened waits for the repository to parse the CSV file.
+	 */
+	@Override
+	public void load() {
+		loader.load("Loading assets...", () -> {
+			loadAssets();
+			return readLocations();
+		}, locations -> locationComboBox.getItems().setAll(locations));
 	}
 
-	// Helper method to parse a single asset entry from the CSV
 	/**
-	 * Parses a single asset entry from the CSV file.
-	 *
-	 * @param assetDetails The array containing asset details to parse.
-	 * @return The parsed AssetInfo object.
+	 * Reloads the locations, which may have been added to, when the page is shown again.
+	 * The listed assets already follow the changes made elsewhere, unless the page
+	 * was left for the home page, in which case they are looked up again.
 	 */
-	private AssetInfo parseAsset(String[] assetDetails) {
-		AssetInfo asset = new AssetInfo();
-		asset.setName(assetDetails[0].trim());
-		asset.setCategory(assetDetails[1].trim());
-		asset.setLocation(assetDetails[2].trim());
-		asset.setPurchaseDate(parseDate(assetDetails[3].trim()));
-		asset.setDescription(assetDetails[4].trim());
-		asset.setPurchasedValue(assetDetails[5].trim());
-		asset.setWarrantyExpirationDate(parseDate(assetDetails[6].trim()));
-		return asset;
+	@Override
+	public void refresh() {
+		loader.load("Loading assets...", this::readLocations, locations -> {
+			if (!locationComboBox.getItems().equals(locations)) {
+				locationComboBox.getItems().setAll(locations);
+			}
+			if (!list.isFollowing() && shown != null) {
+				lookUp(shown);
+			}
+		});
 	}
 
-	// Helper method to parse dates, handling "No date provided"
 	/**
-	 * Parses a date string into a LocalDate object.
-	 *
-	 * @param date The date string to parse.
-	 * @return The parsed LocalDate object, or null if the date string is "No date provided".
+	 * Loads the assets shared by the AssetRepository, which parses the CSV file
+	 * only once per run, and follows the changes made to them.
 	 */
-	private LocalDate parseDate(String date) {
-		if (date.equals("No date provided")) {
-			return null;
-		} else {
-			try {
-				return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
-			} catch (DateTimeParseException e) {
-				System.err.println("Error parsing date: " + e.getMessage());
-				return null;
-			}
-		}
+	public void loadAssets() {
+		AssetRepository repository = AssetRepository.getInstance();
+		assets = repository.getAssets();
+		list.follow(repository); // Adds, edits and deletes made on any screen reach the table
 	}
 
 	/**
@@ -178,17 +143,50 @@ public class ListAssetbyLocation {
 		String[] location = locationInfo.split(",", 2);
 
 		System.out.println("Location choose: " + locationInfo);
-		ObservableList<AssetInfo> filteredAssets = FXCollections.observableArrayList();
-		for (AssetInfo asset : assets) {
-			System.out.println(asset.getName() + " - " + asset.getLocation() + " : " + asset.getLocation().equals(location[0]));
-			if (asset.getLocation().equals(location[0].trim())) {
-				filteredAssets.add(asset);
-			}
-		}
-		System.out.println("Number of matches: " + filteredAssets.size()); 
-		tableView.setItems(filteredAssets);
+		lookUp(location[0].trim());
+	}
+
+	/**
+	 * Looks up the assets at a location in the background and shows them with the
+	 * location total.
+	 *
+	 * @param place The location name.
+	 */
+	private void lookUp(String place) {
+		AssetQuery query = new AssetQuery(); // Tells which assets added or edited later belong as well
+		query.setLocation(place);
+		// Looks up the location index in the background instead of scanning every asset
+		list.searchStarted();
+		loader.load("Searching...", () -> {
+			AssetRepository repository = AssetRepository.getInstance();
+			list.follow(repository); // Before reading, so no change made meanwhile is missed
+			return repository.findByLocation(place);
+		}, matches -> {
+			System.out.println("Number of matches: " + matches.size());
+			shown = place;
+			list.setSource(matches, query::matches); // Reports only the rows that changed
+			showTotal(place);
+		});
 	}
 	
+	/**
+	 * Shows the total purchased value of the location and how many of its warranties have
+	 * expired, read from the running totals and bitmap indexes of the repository rather
+	 * than counted over the table.
+	 *
+	 * @param location The location shown.
+	 */
+	private void showTotal(String location) {
+		AssetRepository repository = AssetRepository.getInstance();
+		String total = "Total value: " + AssetInfo.formatCents(repository.getLocationTotalCents(location));
+		int withoutValue = repository.countWithoutValueAtLocation(location);
+		if (withoutValue > 0) {
+			total += " (" + withoutValue + " without a value)";
+		}
+		int expired = repository.count(null, location, AssetQuery.WarrantyState.EXPIRED);
+		totalLabel.setText(expired > 0 ? total + ", " + expired + " with an expired warranty" : total);
+	}
+
 	/**
 	 * Opens a dialog displaying details of the selected asset.
 	 * 
@@ -246,73 +244,19 @@ public class ListAssetbyLocation {
 
 		if (selectedAsset != null) {
 
-			tableView.getItems().remove(selectedAsset);
-			assets.remove(selectedAsset);
-
-			overWriteCSV();
-			// debug messages
-			System.out.println("Deleted: " + selectedAsset.getName());
+			String name = selectedAsset.getName(); // A view of a removed asset can no longer be read
+			// The change reaches this table and every other screen listing the asset
+			if (AssetRepository.getInstance().remove(selectedAsset)) {
+				// debug messages
+				System.out.println("Deleted: " + name);
+			} else {
+				System.err.println("Could not delete: " + name);
+			}
 		} else {
 			System.out.println("No item selected to delete.");
 		}
 	}
 
-	// Overwrites deleted asset results to CSV file
-	private void overWriteCSV() {
-		clearCSV();
-		for (AssetInfo itr : assets) {
-			saveAssetToCSV(itr);
-		}
-	}
-
-	// Clears the contents of the CSV file
-	public void clearCSV() {
-		// file path for the CSV file at instance variable
-		try {
-			// Write an empty list to the file, truncating it to zero size
-			Files.write(Paths.get(filePath_assets), Collections.emptyList(), StandardOpenOption.TRUNCATE_EXISTING);
-			// testing message
-			System.out.println("CSV file has been cleared.");
-		} catch (IOException e) {
-			// testing message
-			System.err.println("Error clearing the CSV file: " + e.getMessage());
-		}
-	}
-
-	/**
-     * Saves the asset information to the CSV file.
-     * 
-     * @param asset The asset to be saved.
-     */
-	private void saveAssetToCSV(AssetInfo asset) {
-		// file path for the CSV file at instance variable
-		try {
-			// Check if the file does not exist and create it if necessary
-			if (!Files.exists(Paths.get(filePath_assets))) {
-				Files.createFile(Paths.get(filePath_assets));
-			}
-			// Write the assets details to the CSV file
-			try (FileWriter fw = new FileWriter(filePath_assets, true);
-					BufferedWriter bw = new BufferedWriter(fw);
-					PrintWriter out = new PrintWriter(bw)) {
-				out.print(String.join(", ", asset.getName(), asset.getCategory(), asset.getLocation(),
-						asset.getPurchaseDate(), // != null ?
-													// asset.getPurchaseDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-													// : "",
-						asset.getDescription(), asset.getPurchasedValue(), asset.getWarrantyExpirationDate()// != null ?
-																											// asset.getWarrantyExpirationDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-																											// : ""
-				));
-				out.println();// Move to a new line in the file
-			} catch (IOException e) {
-				System.err.println("Error writing to CSV file: " + e.getMessage());// Handle possible I/O errors
-			}
-		} catch (IOException ex) {
-			System.err.println("An error occurred initializing the CSV file: " + ex.getMessage());// Handle file
-																									// creation errors
-		}
-	}
-
 	/**
 	 * Edits the selected asset.
 	 * 
@@ -351,21 +295,11 @@ public class ListAssetbyLocation {
 	 */
 	@FXML
 	public void goHome() {
-		try {// Load the FXML file for the welcome page
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml"));
-			Parent root = loader.load();
-
-			// Get the stage from the current scene
+		loader.cancel();
+		list.stopFollowing(); // Looked up again when the page is shown again
+		try {
 			Stage stage = (Stage) locationComboBox.getScene().getWindow();
-
-			// Set the new scene for the stage
-			Scene scene = new Scene(root);
-
-			// Set the title of the stage
-			stage.setTitle("Welcome to TrackWise");
-
-			stage.setScene(scene);
-			stage.show();
+			Navigator.show(stage, Navigator.WELCOME, "Welcome to TrackWise");
 		} catch (IOException e) {
 			e.printStackTrace();
 			// Handle the exception appropriately
@@ -380,21 +314,12 @@ public class ListAssetbyLocation {
 	 */
 	@FXML
 	private void editAssetPage() {
-			int index = assets.indexOf(selectedAsset);
+		loader.cancel();
 		try {
 			
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/EditAsset.fxml")); 
-			Parent root = loader.load(); // Loads the root element of the FXML file
-			
-			EditAssetController editAssetController = loader.getController();
-			editAssetController.initialize(assets, index);
-			
 			Stage stage = (Stage) locationComboBox.getScene().getWindow();
-			Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-
-			stage.setScene(scene); // Sets the scene to the stage
-			stage.setTitle("Edit Asset"); // Sets the title of the stage
-			stage.show(); // Shows the stage
+			EditAssetController editAssetController = Navigator.show(stage, Navigator.EDIT_ASSET, "Edit Asset");
+			editAssetController.initialize(selectedAsset);
 		} catch (Exception e) {
 			e.printStackTrace();// Prints the stack trace if an exception occurs
 		}
@@ -1,20 +1,13 @@
 package application;
 
-import java.io.IOException;
-import java.time.format.DateTimeParseException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.Label;
@@ -39,8 +32,6 @@ public class Main extends Application {
         launch(args); // Launch the JavaFX application
     }
     
-    private static final String CSV_FILE_PATH = "assets.csv"; // Path to the CSV file containing asset information
-
     /**
      * The start method of the JavaFX application.
      * 
@@ -51,110 +42,66 @@ public class Main extends Application {
     public void start(Stage primaryStage) throws Exception {
     	Main.primaryStage = primaryStage;//test
         try {
-            // Loads the home-page/welcome page
-            FXMLLoader welcomeLoader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml"));
-            Parent welcomeRoot = welcomeLoader.load(); // Loads the FXML file into a Parent node
-            //WelcomeController welcomeController = welcomeLoader.getController(); // Gets the controller associated with the FXML file
-            Scene welcomeScene = new Scene(welcomeRoot, 629, 477); // Creates a new scene with the loaded root node and set its dimensions
+            // Shows the home-page/welcome page; the Welcome view is 629 by 477
+            Navigator.show(primaryStage, Navigator.WELCOME, "Welcome to TrackWise");
 
-            // Show the home-page/ welcome scene initially
-            primaryStage.setScene(welcomeScene); // Sets the scene on the primary stage
-            primaryStage.setTitle("Welcome to TrackWise"); // Sets the title of the primary stage
-            primaryStage.show(); // Shows the primary stage
+            // Parses the screens reachable from the welcome page in the background, the most used first
+            Navigator.preload(Navigator.SEARCH, Navigator.BY_EXPIRED, Navigator.BY_CATEGORY, Navigator.BY_LOCATION,
+                    Navigator.FILTER, Navigator.NEW_ASSET, Navigator.EDIT_ASSET, Navigator.NEW_CATEGORY,
+                    Navigator.NEW_LOCATION);
             
-         // Check for expired warranties
-            if (hasExpiredWarranties()) {
-                System.out.println("Expired Warranties found.");
-            	warrantyWarning();
-            }
-            else {
-            	System.out.println("No expired Warranties.");
-            }
+            // Check for expired warranties in the background so the welcome page stays responsive
+            checkWarranties();
         } catch(Exception e) {
             e.printStackTrace(); // Prints any exceptions that occur during the loading and showing process
         }
     }
     
     /**
-     * Checks if there are expired warranties among the assets.
-     *
-     * @return True if expired warranties are found, false otherwise.
+     * Called when the application exits. Folds pending asset changes into the CSV file.
      */
-    private boolean hasExpiredWarranties() {
-        try {
-            // Read asset information from the CSV file
-            List<AssetInfo> assets = Files.readAllLines(Paths.get(CSV_FILE_PATH))
-                    .stream()
-                    .map(this::parseAssetInfo)
-                    .collect(Collectors.toList());
-
-            LocalDate today = LocalDate.now();
-            for (AssetInfo asset : assets) {
-                LocalDate warrantyExpirationDate = asset.getWarrantyExpirationLocalDate();
-                if (warrantyExpirationDate != null && warrantyExpirationDate.isBefore(today)) {
-                    return true;
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return false;
+    @Override
+    public void stop() {
+        AssetRepository.shutdown();
     }
-
+    
     /**
-     * Parses a line of text representing asset information from the CSV file.
-     *
-     * @param line The line of text to parse.
-     * @return The parsed AssetInfo object.
+     * Counts expired and soon-expiring warranties off the JavaFX Application Thread
+     * and shows the warning dialog once the counts are known.
      */
-    private AssetInfo parseAssetInfo(String line) {
-    	String[] parts = line.split(",");
-        LocalDate purchaseDate = null;
-        LocalDate warrantyExpirationDate = null;
-
-        // Safely parse the purchase date if it is provided and valid
-        if (!parts[3].trim().isEmpty() && !parts[3].trim().equalsIgnoreCase("No date provided")) {
-            try {
-                purchaseDate = LocalDate.parse(parts[3].trim());
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid purchase date format for line: " + line);
-            }
-        }
-
-        // Safely parse the warranty expiration date if it is provided and valid
-        if (!parts[6].trim().isEmpty() && !parts[6].trim().equalsIgnoreCase("No date provided")) {
-            try {
-                warrantyExpirationDate = LocalDate.parse(parts[6].trim());
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid warranty expiration date format for line: " + line);
-            }
-        }
-
-        return new AssetInfo(
-            parts[0].trim(),  // Name
-            parts[1].trim(),  // Category
-            parts[2].trim(),  // Location
-            purchaseDate,     // Purchase date (can be null)
-            parts[4].trim(),  // Description
-            parts[5].trim(),  // Purchased value
-            warrantyExpirationDate  // Warranty expiration date (can be null)
-        );
+    private void checkWarranties() {
+        WarrantyCheck.check(Paths.get(AssetRepository.CSV_FILE_PATH), LocalDate.now())
+                .whenCompleteAsync((result, failure) -> {
+                    if (failure != null) {
+                        failure.printStackTrace();
+                    }
+                    else if (result.hasExpired()) {
+                        System.out.println("Expired Warranties found.");
+                        warrantyWarning(result);
+                    }
+                    else {
+                        System.out.println("No expired Warranties.");
+                    }
+                }, Platform::runLater);
     }
-    
+
     /**
      * Displays a warranty warning dialog.
      * 
-     * This method creates a dialog informing the user that there are assets whose warranties have expired.
-     * It provides an option to show the list of expired assets.
+     * This method creates a dialog informing the user how many assets' warranties have expired
+     * or expire soon. It provides an option to show the list of expired assets.
+     * 
+     * @param result The warranty counts to report.
      */
-    private void warrantyWarning() {
+    private void warrantyWarning(WarrantyCheck result) {
     	Dialog<Void> dialog = new Dialog<>();
         dialog.initModality(Modality.APPLICATION_MODAL); // Block interaction with other windows until this one is closed
         dialog.setTitle("Warranty Warning");
 
         // Create labels and add them to a VBox
         VBox vbox = new VBox(10);
-        Label message = new Label("There are assets' warranty that has expired.");
+        Label message = new Label(result.getExpired() + " asset(s) have an expired warranty, and "
+                + result.getExpiringSoon() + " more expire within " + WarrantyCheck.SOON_DAYS + " days.");
         
         HBox buttonArea = new HBox(10);
         buttonArea.setAlignment(Pos.BOTTOM_RIGHT);
@@ -190,12 +137,7 @@ public class Main extends Application {
     	Stage stage = Main.getPrimaryStage();//test
     	try {
     		//Stage stage = (Stage)((Node) event.getSource()).getScene().getWindow();
-    		 FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/ListAssetbyExpired.fxml")); // Load the FXML file for page
-             Parent root = loader.load(); // Loads the root element of the FXML file
-             Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-             stage.setScene(scene); // Sets the scene to the stage
-             stage.setTitle("List Asset by Expired"); // Sets the title of the stage
-             stage.show(); // Shows the stage
+    		 Navigator.show(stage, Navigator.BY_EXPIRED, "List Asset by Expired");
     	}catch(Exception e) {
     		e.printStackTrace();// Prints the stack trace if an exception occurs
     	}
@@ -0,0 +1,310 @@
+package application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * The MappedAssetReader class reads assets.csv through a memory-mapped view of
+ * the file. It scans the bytes for field separators and line ends without
+ * creating a String per line or a split array per row; a field is only turned
+ * into a String when it is asked for, and ISO dates are parsed straight from
+ * the bytes.
+ *
+ * Fields follow the same rules as {@link AssetCSV#parseAsset(String)}: they are
+ * separated by commas, surrounding white space is dropped, and rows with fewer
+ * than seven fields are skipped, not counting empty fields at the end of the row.
+ */
+public final class MappedAssetReader {
+	private static final long WINDOW_SIZE = 1L << 28; // Bytes mapped at a time, so files over 2 GB can be read
+	private static final int MAX_FIELDS = 16; // Field positions recorded per row; later fields are ignored
+	private static final byte[] NO_DATE = AssetCSV.NO_DATE.getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Receives the rows of the file one at a time.
+	 */
+	public interface RowVisitor {
+		/**
+		 * Handles one row. The row object is reused for the next row and must not be kept.
+		 *
+		 * @param row The current row.
+		 * @return true to continue with the next row, false to stop reading.
+		 */
+		boolean visit(Row row);
+	}
+
+	/**
+	 * A single row of the mapped file. Fields are decoded on request.
+	 */
+	public static final class Row {
+		private MappedByteBuffer buffer; // Window holding the row
+		private ByteBuffer cursor; // Second view of the window used for bulk copies
+		private byte[] scratch = new byte[256]; // Reused copy buffer for decoding fields
+		private final int[] starts = new int[MAX_FIELDS]; // Offset of the first byte of each field
+		private final int[] ends = new int[MAX_FIELDS]; // Offset just past the last byte of each field
+		private int lineStart; // Offset of the row in the window
+		private int lineEnd; // Offset of the line end in the window
+
+		/**
+		 * Decodes a field as a trimmed String.
+		 *
+		 * @param field The index of the field.
+		 * @return The field text.
+		 */
+		public String getString(int field) {
+			int length = ends[field] - starts[field];
+			if (length == 0) {
+				return "";
+			}
+			return decode(starts[field], ends[field]);
+		}
+
+		/**
+		 * Parses a field holding an ISO date (yyyy-MM-dd) directly from the bytes.
+		 *
+		 * @param field The index of the field.
+		 * @return The date, or null if the field is blank, "No date provided" or invalid.
+		 */
+		public LocalDate getDate(int field) {
+			int start = starts[field];
+			int length = ends[field] - start;
+			if (length == 10 && buffer.get(start + 4) == '-' && buffer.get(start + 7) == '-') {
+				int year = digits(start, 4);
+				int month = digits(start + 5, 2);
+				int day = digits(start + 8, 2);
+				if (year >= 0 && month >= 0 && day >= 0) {
+					try {
+						return LocalDate.of(year, month, day);
+					} catch (DateTimeException e) {
+						System.err.println("Error parsing date: " + e.getMessage());
+						return null;
+					}
+				}
+			}
+			if (length == 0 || matches(field, NO_DATE)) {
+				return null;
+			}
+			return AssetCSV.parseDate(getString(field)); // Uncommon layout, use the regular parser
+		}
+
+		/**
+		 * Parses a field holding an ISO date into an epoch day.
+		 *
+		 * @param field The index of the field.
+		 * @return The epoch day, or {@link AssetStore#NO_DATE} if there is no valid date.
+		 */
+		int getEpochDay(int field) {
+			LocalDate date = getDate(field);
+			return date != null ? (int) date.toEpochDay() : AssetStore.NO_DATE;
+		}
+
+		/**
+		 * Decodes the text of the whole row, used in error messages.
+		 *
+		 * @return The row text.
+		 */
+		public String getLine() {
+			return decode(lineStart, lineEnd);
+		}
+
+		/**
+		 * Decodes a range of the window as UTF-8 text.
+		 *
+		 * @param start The offset of the first byte.
+		 * @param end The offset just past the last byte.
+		 * @return The decoded text.
+		 */
+		private String decode(int start, int end) {
+			int length = end - start;
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			cursor.position(start);
+			cursor.get(scratch, 0, length);
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Reads a run of ASCII digits as a number.
+		 *
+		 * @param offset The offset of the first digit.
+		 * @param length The number of digits.
+		 * @return The number, or -1 if a byte is not a digit.
+		 */
+		private int digits(int offset, int length) {
+			int value = 0;
+			for (int i = offset; i < offset + length; i++) {
+				int digit = buffer.get(i) - '0';
+				if (digit < 0 || digit > 9) {
+					return -1;
+				}
+				value = value * 10 + digit;
+			}
+			return value;
+		}
+
+		/**
+		 * Compares a field with an ASCII constant, ignoring case.
+		 *
+		 * @param field The index of the field.
+		 * @param text The bytes to compare with.
+		 * @return true if the field holds the text.
+		 */
+		private boolean matches(int field, byte[] text) {
+			if (ends[field] - starts[field] != text.length) {
+				return false;
+			}
+			for (int i = 0; i < text.length; i++) {
+				if (Character.toLowerCase(buffer.get(starts[field] + i)) != Character.toLowerCase(text[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private MappedAssetReader() {
+		// Utility class, not instantiated
+	}
+
+	/**
+	 * Reads every asset in a CSV file straight into a store. Each row costs the scan
+	 * for its field boundaries plus parsing its dates and value; the name and
+	 * description are copied into the store as bytes and only decoded when a view
+	 * of the asset is asked for them.
+	 *
+	 * @param path The CSV file to read.
+	 * @param store The store to append the assets to, in file order.
+	 * @throws IOException If the file cannot be read.
+	 */
+	static void load(Path path, AssetStore store) throws IOException {
+		scan(path, row -> {
+			store.append(StringDictionary.CATEGORIES.encode(row.getString(1)),
+					StringDictionary.LOCATIONS.encode(row.getString(2)),
+					row.getEpochDay(3), row.getEpochDay(6), row.getString(5), row.buffer,
+					row.starts[0], row.ends[0] - row.starts[0], row.starts[4], row.ends[4] - row.starts[4]);
+			return true;
+		});
+	}
+
+	/**
+	 * Passes every row holding an asset to the visitor, stopping early if it returns false.
+	 *
+	 * @param path The CSV file to read.
+	 * @param visitor The visitor receiving the rows.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public static void scan(Path path, RowVisitor visitor) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			Row row = new Row();
+			while (position < size) {
+				long length = Math.min(WINDOW_SIZE, size - position);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				boolean last = position + length == size;
+				int consumed = scanWindow(buffer, (int) length, last, row, visitor);
+				if (consumed < 0) {
+					return; // The visitor asked to stop
+				}
+				if (consumed == 0) {
+					throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + position);
+				}
+				position += consumed;
+			}
+		}
+	}
+
+	/**
+	 * Scans the complete lines of one mapped window.
+	 *
+	 * @param buffer The mapped window.
+	 * @param limit The number of bytes in the window.
+	 * @param last Whether the window ends at the end of the file.
+	 * @param row The reusable row.
+	 * @param visitor The visitor receiving the rows.
+	 * @return The number of bytes consumed, or -1 if the visitor stopped the scan.
+	 */
+	private static int scanWindow(MappedByteBuffer buffer, int limit, boolean last, Row row, RowVisitor visitor) {
+		row.buffer = buffer;
+		row.cursor = buffer.duplicate();
+		int lineStart = 0;
+		while (lineStart < limit) {
+			int lineEnd = lineStart;
+			while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			if (lineEnd == limit && !last) {
+				return lineStart; // Incomplete line, read again from the next window
+			}
+			int contentEnd = lineEnd;
+			if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+				contentEnd--;
+			}
+			if (split(buffer, lineStart, contentEnd, row)) {
+				if (!visitor.visit(row)) {
+					return -1;
+				}
+			} else if (!isBlank(buffer, lineStart, contentEnd)) {
+				System.err.println("Skipping malformed asset row: " + row.getLine());
+			}
+			lineStart = lineEnd + 1;
+		}
+		return limit;
+	}
+
+	/**
+	 * Records the trimmed field boundaries of a line in the row. Like String.split,
+	 * empty fields at the end of the line are not counted, so a row whose seventh
+	 * field is empty is malformed.
+	 *
+	 * @return true if the line has at least seven fields.
+	 */
+	private static boolean split(MappedByteBuffer buffer, int start, int end, Row row) {
+		row.lineStart = start;
+		row.lineEnd = end;
+		int count = 0;
+		int counted = 0; // Fields up to the last one that is not empty
+		int fieldStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || buffer.get(i) == ',') {
+				if (count < MAX_FIELDS) {
+					int s = fieldStart;
+					int e = i;
+					while (s < e && (buffer.get(s) & 0xFF) <= ' ') {
+						s++;
+					}
+					while (e > s && (buffer.get(e - 1) & 0xFF) <= ' ') {
+						e--;
+					}
+					row.starts[count] = s;
+					row.ends[count] = e;
+				}
+				count++;
+				if (i > fieldStart) {
+					counted = count;
+				}
+				fieldStart = i + 1;
+			}
+		}
+		return counted >= AssetCSV.FIELD_COUNT;
+	}
+
+	/**
+	 * Checks whether a line holds only white space.
+	 */
+	private static boolean isBlank(MappedByteBuffer buffer, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if ((buffer.get(i) & 0xFF) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+}
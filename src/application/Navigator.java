@@ -0,0 +1,236 @@
+package application;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+/**
+ * The Navigator class switches the stage between the views of the application.
+ * Each FXML file is parsed once and its scene and controller are kept, so going
+ * back to a screen only swaps scenes. A controller that is {@link Refreshable}
+ * loads its data when its view is first shown and is refreshed when it is shown again.
+ *
+ * Views can be preloaded on a background thread, as JavaFX allows building nodes
+ * off the JavaFX Application Thread while they are not in a showing window. A view
+ * asked for while it is still preloading waits for that load instead of starting
+ * another one. Parsing runs the initialize() method of the controller on that
+ * thread, so initialize() only sets up the nodes; reading files, starting work
+ * and following the repository wait for {@link Refreshable#load()}, which runs on
+ * the JavaFX Application Thread.
+ */
+final class Navigator {
+	static final String WELCOME = "/view/Welcome.fxml"; // Home page
+	static final String NEW_CATEGORY = "/view/NewCategory.fxml"; // Form for a new category
+	static final String NEW_LOCATION = "/view/NewLocation.fxml"; // Form for a new location
+	static final String NEW_ASSET = "/view/NewAsset.fxml"; // Form for a new asset
+	static final String EDIT_ASSET = "/view/EditAsset.fxml"; // Form for editing an asset
+	static final String SEARCH = "/view/Search.fxml"; // Search by name
+	static final String FILTER = "/view/FilterAssets.fxml"; // Search by several criteria
+	static final String BY_CATEGORY = "/view/ListAssetbyCategory.fxml"; // Assets of a category
+	static final String BY_LOCATION = "/view/ListAssetbyLocation.fxml"; // Assets at a location
+	static final String BY_EXPIRED = "/view/ListAssetbyExpired.fxml"; // Assets by warranty expiration
+
+	static final String TIMING_PROPERTY = "trackwise.timing"; // System property printing how long each screen takes to show
+
+	private static final boolean TIMING = Boolean.getBoolean(TIMING_PROPERTY); // Whether show() prints its timings
+	private static final Map<String, FutureTask<View>> VIEWS = new ConcurrentHashMap<>(); // Loaded or loading views by FXML path
+
+	/**
+	 * The Refreshable interface is implemented by controllers whose screen shows data
+	 * that may have changed while another screen was shown.
+	 */
+	interface Refreshable {
+		/**
+		 * Loads the data of the screen before it is first shown, on the JavaFX
+		 * Application Thread. Does nothing unless the screen has data to load.
+		 */
+		default void load() {
+		}
+
+		/**
+		 * Brings the screen up to date before it is shown again.
+		 */
+		void refresh();
+	}
+
+	private Navigator() {
+	}
+
+	/**
+	 * Shows a view on a stage, loading it first if it was never loaded.
+	 *
+	 * With the {@link #TIMING_PROPERTY} system property set to true, it prints the
+	 * time spent waiting for the FXML file to be parsed, loading or refreshing the
+	 * screen, and until the first layout pulse of the scene after the switch.
+	 *
+	 * @param <T> The type of the controller.
+	 * @param stage The stage to show the view on.
+	 * @param path The FXML path of the view.
+	 * @param title The title of the stage.
+	 * @return The controller of the view.
+	 * @throws IOException If the FXML file cannot be loaded.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T show(Stage stage, String path, String title) throws IOException {
+		long start = TIMING ? System.nanoTime() : 0;
+		View view = view(path);
+		long parsed = TIMING ? System.nanoTime() : 0;
+		boolean first = view.scene == null;
+		if (!first) {
+			if (view.controller instanceof Refreshable) {
+				((Refreshable) view.controller).refresh();
+			}
+		} else {
+			view.scene = new Scene(view.root); // Scenes are created on the JavaFX Application Thread
+			if (view.controller instanceof Refreshable) {
+				((Refreshable) view.controller).load();
+			}
+		}
+		stage.setTitle(title);
+		stage.setScene(view.scene);
+		stage.show();
+		if (TIMING) {
+			new Timing(path, first, start, parsed, view.scene).await();
+		}
+		return (T) view.controller;
+	}
+
+	/**
+	 * Loads views on a background thread, one after the other, so they are ready
+	 * when first shown.
+	 *
+	 * @param paths The FXML paths of the views, the most likely next screen first.
+	 */
+	static void preload(String... paths) {
+		Thread thread = new Thread(() -> {
+			for (String path : paths) {
+				try {
+					view(path);
+				} catch (IOException e) {
+					System.err.println("Error preloading " + path + ": " + e.getMessage());
+				}
+			}
+		}, "view-preloader");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns a view, loading it on the calling thread unless it is loaded or being
+	 * loaded already.
+	 *
+	 * @param path The FXML path of the view.
+	 * @return The view.
+	 * @throws IOException If the FXML file cannot be loaded.
+	 */
+	private static View view(String path) throws IOException {
+		FutureTask<View> load = VIEWS.computeIfAbsent(path, p -> new FutureTask<>(() -> View.load(p)));
+		load.run(); // Returns at once if the view is loaded or loading on another thread
+		try {
+			return load.get();
+		} catch (ExecutionException e) {
+			VIEWS.remove(path, load); // Lets the next attempt load the view again
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while loading " + path, e);
+		}
+	}
+
+	/**
+	 * The Timing class prints how long showing a view took once the scene has been
+	 * laid out for the first time after the switch.
+	 */
+	private static final class Timing implements Runnable {
+		private final String path; // FXML path of the view shown
+		private final boolean first; // Whether the view was shown for the first time
+		private final long start; // Nano time show() was called
+		private final long parsed; // Nano time the view was parsed
+		private final long switched; // Nano time the stage showed the scene
+		private final Scene scene; // Scene of the view
+		private boolean done; // Whether the timing was printed
+
+		/**
+		 * Creates the timing of one call to show().
+		 *
+		 * @param path The FXML path of the view.
+		 * @param first Whether the view was loaded rather than refreshed.
+		 * @param start The nano time show() was called.
+		 * @param parsed The nano time the view was parsed.
+		 * @param scene The scene of the view.
+		 */
+		private Timing(String path, boolean first, long start, long parsed, Scene scene) {
+			this.path = path;
+			this.first = first;
+			this.start = start;
+			this.parsed = parsed;
+			this.switched = System.nanoTime();
+			this.scene = scene;
+		}
+
+		/**
+		 * Waits for the next layout pulse of the scene.
+		 */
+		private void await() {
+			scene.addPostLayoutPulseListener(this);
+		}
+
+		/**
+		 * Prints the timings after the first layout pulse and stops listening.
+		 */
+		@Override
+		public void run() {
+			if (done) {
+				return;
+			}
+			done = true;
+			long laidOut = System.nanoTime();
+			Platform.runLater(() -> scene.removePostLayoutPulseListener(this)); // Not while the pulse walks its listeners
+			System.out.printf("Showed %s: %.1f ms parsing, %.1f ms %s, %.1f ms to first layout, %.1f ms in all%n",
+					path, (parsed - start) / 1e6, (switched - parsed) / 1e6, first ? "loading" : "refreshing",
+					(laidOut - switched) / 1e6, (laidOut - start) / 1e6);
+		}
+	}
+
+	/**
+	 * The View class holds a parsed FXML file, its controller and, once shown, its scene.
+	 */
+	private static final class View {
+		private final Parent root; // Root node of the FXML file
+		private final Object controller; // Controller created by the FXMLLoader
+		private Scene scene; // Scene holding the root, created when first shown
+
+		/**
+		 * Creates a view.
+		 *
+		 * @param root The root node.
+		 * @param controller The controller.
+		 */
+		private View(Parent root, Object controller) {
+			this.root = root;
+			this.controller = controller;
+		}
+
+		/**
+		 * Parses an FXML file.
+		 *
+		 * @param path The FXML path.
+		 * @return The view.
+		 * @throws IOException If the file cannot be loaded.
+		 */
+		private static View load(String path) throws IOException {
+			FXMLLoader loader = new FXMLLoader(Navigator.class.getResource(path));
+			Parent root = loader.load();
+			return new View(root, loader.getController());
+		}
+	}
+}
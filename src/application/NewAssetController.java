@@ -1,21 +1,16 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
-import java.io.PrintWriter;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -25,7 +20,7 @@ import java.util.stream.Collectors;
  * It validates required fields, saves asset information to a CSV file, and navigates among views.
  */
 
-public class NewAssetController {
+public class NewAssetController implements Navigator.Refreshable {
 	
 	 	@FXML private TextField assetNameLabel; // Text field for entering assetName
 	 	@FXML private Label assetDisplayLabel; // Label for displaying the asset information
@@ -42,17 +37,28 @@ public class NewAssetController {
 	    
 	    @FXML private DatePicker warrantyExpirationDatePicker;// Date chooser for warranty expiration date if any
 	    
+	    private boolean saving; // Whether a save waits for the assets to finish loading
+	    
 	    /**
-	     * Initializes the controller class. This method is automatically called
-	     * after the fxml file has been loaded. It calls methods to populate the category
-	     * and location dropdowns.
+	     * Populates the category and location dropdowns when the page is first shown,
+	     * rather than when the fxml file is loaded, which may happen in the background.
 	     */
-	    
-	    public void initialize() {
+	    @Override
+	    public void load() {
 	        loadCategories();
 	        loadLocations();
 	    }
 	    
+	    /**
+	     * Starts from an empty form with the current options when the page is shown again.
+	     */
+	    @Override
+	    public void refresh() {
+	        load();
+	        clearForm();
+	        assetDisplayLabel.setText("No Asset Defined Yet.");
+	    }
+	    
 	    /**
 	     * Loads category options from a CSV file into the category combo box.
 	     */
@@ -83,7 +89,8 @@ public class NewAssetController {
 	    
 	    /**
 	     * Handles the action to save an asset.
-	     * Validates required fields and saves asset data to a CSV file.
+	     * Validates required fields and saves asset data to a CSV file. If the assets
+	     * are still loading, the asset is saved once they are loaded.
 	     */
 
 	    @FXML
@@ -97,45 +104,22 @@ public class NewAssetController {
 	            		location, purchaseDatePicker.getValue(), descriptionTextArea.getText(),
 	                    purchasedValueTextField.getText(), warrantyExpirationDatePicker.getValue());
 
-	            assetDisplayLabel.setText("New Asset Defined: " + assetNameLabel.getText());
-	            saveAssetToCSV(asset);
-	            clearForm();
-	            
-	        }
-	    }
-	    /**
-		 * Saves the entered asset information to a CSV file if already exist else makes a new CSV file.
-		 * @param asset The asset to save.
-		 */
-
-	    private void saveAssetToCSV(AssetInfo asset) {
-	        String filePath = "assets.csv";// Define the file path for the CSV file
-
-
-	        try {
-	        	// Check if the file does not exist and create it if necessary
-	            if (!Files.exists(Paths.get(filePath))) {
-	                Files.createFile(Paths.get(filePath));
+	            if (saving) {
+	                return; // The asset is saved once the assets are loaded
 	            }
-	            // Write the assets details to the CSV file
-	            try (FileWriter fw = new FileWriter(filePath, true);
-	                 BufferedWriter bw = new BufferedWriter(fw);
-	                 PrintWriter out = new PrintWriter(bw)) {
-	                out.print(String.join(", ",
-	                    asset.getName(),
-	                    asset.getCategory(),
-	                    asset.getLocation(),
-	                    asset.getPurchaseDate(),// != null ? asset.getPurchaseDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : "",
-	                    asset.getDescription(),
-	                    asset.getPurchasedValue(),
-	                    asset.getWarrantyExpirationDate()// != null ? asset.getWarrantyExpirationDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : ""
-	                ));
-	                out.println();// Move to a new line in the file
-	            } catch (IOException e) {
-	                System.err.println("Error writing to CSV file: " + e.getMessage());// Handle possible I/O errors
-	            }
-	        } catch (IOException ex) {
-	            System.err.println("An error occurred initializing the CSV file: " + ex.getMessage());// Handle file creation errors
+	            saving = true;
+	            assetDisplayLabel.setText("Saving...");
+	            // Waits for the assets to load off the JavaFX Application Thread, then saves on it
+	            AssetRepository.whenLoaded().whenCompleteAsync((repository, failure) -> {
+	                saving = false;
+	                if (repository != null && repository.add(asset)) {
+	                    assetDisplayLabel.setText("New Asset Defined: " + asset.getName());
+	                    clearForm();
+	                } else {
+	                    assetDisplayLabel.setText("Error: The assets could not be loaded, so changes are not saved.");
+	                }
+	            }, Platform::runLater);
+	            
 	        }
 	    }
 	    /**
@@ -158,13 +142,8 @@ public class NewAssetController {
 	    @FXML
 	    private void goHome() {
 	        try {
-	            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml"));
-	            Parent root = loader.load();
 	            Stage stage = (Stage) assetNameLabel.getScene().getWindow();
-	            Scene scene = new Scene(root);
-	            stage.setTitle("Welcome Home");
-	            stage.setScene(scene);
-	            stage.show();
+	            Navigator.show(stage, Navigator.WELCOME, "Welcome Home");
 	        } catch (IOException e) {
 	            e.printStackTrace();
 	        }
@@ -8,9 +8,6 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
@@ -19,7 +16,7 @@ import javafx.stage.Stage;
  * Controller class for the NewCategory.fxml file.
  * This class handles the logic and functionality of the UI components defined in the FXML file.
  */
-public class NewCategoryController {
+public class NewCategoryController implements Navigator.Refreshable {
 	
 	@FXML TextField categoryNameLabel; // Text field for entering category name
 	@FXML Label categoryDisplayLabel; // Label for displaying category information
@@ -33,6 +30,15 @@ public class NewCategoryController {
 		categoryDisplayLabel.setText("No Category Defined Yet."); 
     }
 	
+	/**
+     * Starts from an empty form when the page is shown again.
+     */
+	@Override
+	public void refresh() {
+		categoryNameLabel.setText("");
+		initialize();
+	}
+	
 	/**
      * Handles the action event when the "Add Category" button is clicked.
      * Reads the text entered in the categoryNameLabel text field and updates the categoryDisplayLabel accordingly.
@@ -87,21 +93,9 @@ public class NewCategoryController {
 	Loads the homepage FXML file and sets it as the scene for the stage.
 	*/
 	public void goHome() {
-	    try {// Load the FXML file for the welcome page
-	        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml"));
-	        Parent root = loader.load();
-
-	            // Get the stage from the current scene
-	            Stage stage = (Stage) categoryNameLabel.getScene().getWindow();
-
-	            // Set the new scene for the stage
-	            Scene scene = new Scene(root);
-
-	            // Set the title of the stage
-	            stage.setTitle("Welcome to TrackWise");
-
-	            stage.setScene(scene);
-	            stage.show();
+	    try {
+	        Stage stage = (Stage) categoryNameLabel.getScene().getWindow();
+	        Navigator.show(stage, Navigator.WELCOME, "Welcome to TrackWise");
 	        } catch (IOException e) {
 	            e.printStackTrace();
 	            // Handle the exception appropriately
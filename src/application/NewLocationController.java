@@ -4,9 +4,6 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextArea;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -18,7 +15,7 @@ import java.io.PrintWriter;
 /**
  * Controller for managing the "New Location" form in the application.
  */
-public class NewLocationController {
+public class NewLocationController implements Navigator.Refreshable {
 
     @FXML
     private TextField locationNameLabel; // TextField for entering the name of the location
@@ -36,6 +33,16 @@ public class NewLocationController {
         locationDisplayLabel.setText("No location category defined yet."); // Set initial text for the display label
     }
 
+    /**
+     * Starts from an empty form when the page is shown again.
+     */
+    @Override
+    public void refresh() {
+        locationNameLabel.setText("");
+        locationDescriptionLabel.setText("");
+        initialize();
+    }
+
     /**
      * Adds a new location category based on user input from the form.
      */
@@ -96,13 +103,8 @@ public class NewLocationController {
      */
     public void goHome() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml")); // Load the welcome view
-            Parent root = loader.load(); // Load the root element from the FXML
             Stage stage = (Stage) locationNameLabel.getScene().getWindow(); // Get the current stage
-            Scene scene = new Scene(root); // Create a new scene with the loaded root
-            stage.setTitle("Welcome to TrackWise"); // Set the stage title
-            stage.setScene(scene); // Set the new scene on the stage
-            stage.show(); // Display the stage
+            Navigator.show(stage, Navigator.WELCOME, "Welcome to TrackWise");
         } catch (IOException e) {
             e.printStackTrace(); // Print stack trace if an exception occurs
         }
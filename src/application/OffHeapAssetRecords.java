@@ -0,0 +1,399 @@
+package application;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The OffHeapAssetRecords class keeps asset records in direct ByteBuffers,
+ * outside the Java heap, so the garbage collector never has to walk them however
+ * many assets are stored. Each slot is a fixed record of RECORD_BYTES:
+ *
+ * <pre>
+ * 0  int  category code      16 long value in cents
+ * 4  int  location code      24 long start of the text
+ * 8  int  purchase day       32 int  name length
+ * 12 int  warranty day       36 int  description length
+ *                            40 byte value format
+ * </pre>
+ *
+ * The name and description of a slot are stored next to each other as UTF-8 in a
+ * separate text area. Records and text are both split into chunks, so growing
+ * never copies what is already stored and no single buffer nears the 2 GB limit.
+ * Reads use absolute positions only, so views may read from several threads.
+ *
+ * Text left behind by replaced records and removed assets is dropped once it
+ * makes up more than half of the text area, so the text stays within about twice
+ * what the stored assets need. A copy packs only the text still in use, into
+ * buffers no larger than it needs.
+ */
+class OffHeapAssetRecords implements AssetRecords {
+	static final int RECORD_BYTES = 48; // Size of a record, keeping the long fields 8-byte aligned
+	private static final int RECORDS_PER_CHUNK = 1 << 16; // Records in one record buffer
+	private static final int TEXT_CHUNK_BYTES = 1 << 24; // Size of one text buffer
+	private static final int CATEGORY = 0;
+	private static final int LOCATION = 4;
+	private static final int PURCHASE_DAY = 8;
+	private static final int WARRANTY_DAY = 12;
+	private static final int VALUE_CENTS = 16;
+	private static final int TEXT_START = 24;
+	private static final int NAME_LENGTH = 32;
+	private static final int DESCRIPTION_LENGTH = 36;
+	private static final int VALUE_FORMAT = 40;
+
+	private ByteBuffer[] records = new ByteBuffer[16]; // Record buffers, RECORDS_PER_CHUNK records each
+	private final List<ByteBuffer> text = new ArrayList<>(); // Text buffers, TEXT_CHUNK_BYTES each
+	private long textSize; // Offset of the next text byte across all text buffers
+	private long wastedText; // Bytes of text left behind by replaced records, released slots or chunk ends
+	private final BitSet released = new BitSet(); // Slots of removed assets, whose text the next compaction drops
+	private int slots; // Number of slots written
+
+	@Override
+	public void write(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents,
+			byte valueFormat, String name, String description) {
+		ByteBuffer buffer = writeFields(slot, category, location, purchaseDay, warrantyDay, cents, valueFormat);
+		int offset = offset(slot);
+		byte[] nameBytes = encode(name);
+		byte[] descriptionBytes = encode(description);
+		int nameLength = nameBytes != null ? nameBytes.length : 0;
+		int descriptionLength = descriptionBytes != null ? descriptionBytes.length : 0;
+		long start = reserveText(nameLength + descriptionLength);
+		putText(start, nameBytes);
+		putText(start + nameLength, descriptionBytes);
+		buffer.putLong(offset + TEXT_START, start);
+		buffer.putInt(offset + NAME_LENGTH, nameBytes != null ? nameLength : NO_TEXT);
+		buffer.putInt(offset + DESCRIPTION_LENGTH, descriptionBytes != null ? descriptionLength : NO_TEXT);
+		compactIfWasteful();
+	}
+
+	@Override
+	public void write(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents,
+			byte valueFormat, ByteBuffer source, int nameStart, int nameLength, int descriptionStart,
+			int descriptionLength) {
+		ByteBuffer buffer = writeFields(slot, category, location, purchaseDay, warrantyDay, cents, valueFormat);
+		int offset = offset(slot);
+		long start = reserveText(nameLength + descriptionLength);
+		if (nameLength + descriptionLength > 0) {
+			ByteBuffer chunk = text.get((int) (start / TEXT_CHUNK_BYTES));
+			int position = (int) (start % TEXT_CHUNK_BYTES);
+			chunk.put(position, source, nameStart, nameLength);
+			chunk.put(position + nameLength, source, descriptionStart, descriptionLength);
+		}
+		buffer.putLong(offset + TEXT_START, start);
+		buffer.putInt(offset + NAME_LENGTH, nameLength);
+		buffer.putInt(offset + DESCRIPTION_LENGTH, descriptionLength);
+		compactIfWasteful();
+	}
+
+	/**
+	 * Writes the fixed-size fields of a slot, allocating a record buffer for a new slot if needed.
+	 *
+	 * @param slot The slot, at most the number of slots written so far.
+	 * @param category The category code.
+	 * @param location The location code.
+	 * @param purchaseDay The purchase date as an epoch day.
+	 * @param warrantyDay The warranty expiration as an epoch day.
+	 * @param cents The purchased value in cents.
+	 * @param valueFormat How the purchased value text is rebuilt from the cents.
+	 * @return The record buffer holding the slot.
+	 */
+	private ByteBuffer writeFields(int slot, int category, int location, int purchaseDay, int warrantyDay, long cents,
+			byte valueFormat) {
+		if (slot == slots) {
+			int chunk = slot / RECORDS_PER_CHUNK;
+			if (chunk == records.length) {
+				records = Arrays.copyOf(records, chunk * 2);
+			}
+			if (records[chunk] == null) {
+				records[chunk] = allocate(RECORDS_PER_CHUNK * RECORD_BYTES);
+			} else if (records[chunk].capacity() == offset(slot)) {
+				records[chunk] = grow(records[chunk], RECORDS_PER_CHUNK * RECORD_BYTES); // The short last buffer of a copy
+			}
+			slots++;
+		} else {
+			wastedText += textLength(slot);
+		}
+		ByteBuffer buffer = records[slot / RECORDS_PER_CHUNK];
+		int offset = (slot % RECORDS_PER_CHUNK) * RECORD_BYTES;
+		buffer.putInt(offset + CATEGORY, category);
+		buffer.putInt(offset + LOCATION, location);
+		buffer.putInt(offset + PURCHASE_DAY, purchaseDay);
+		buffer.putInt(offset + WARRANTY_DAY, warrantyDay);
+		buffer.putLong(offset + VALUE_CENTS, cents);
+		buffer.put(offset + VALUE_FORMAT, valueFormat);
+		return buffer;
+	}
+
+	@Override
+	public int categoryCode(int slot) {
+		return records[slot / RECORDS_PER_CHUNK].getInt(offset(slot) + CATEGORY);
+	}
+
+	@Override
+	public int locationCode(int slot) {
+		return records[slot / RECORDS_PER_CHUNK].getInt(offset(slot) + LOCATION);
+	}
+
+	@Override
+	public int purchaseDay(int slot) {
+		return records[slot / RECORDS_PER_CHUNK].getInt(offset(slot) + PURCHASE_DAY);
+	}
+
+	@Override
+	public int warrantyDay(int slot) {
+		return records[slot / RECORDS_PER_CHUNK].getInt(offset(slot) + WARRANTY_DAY);
+	}
+
+	@Override
+	public long valueCents(int slot) {
+		return records[slot / RECORDS_PER_CHUNK].getLong(offset(slot) + VALUE_CENTS);
+	}
+
+	@Override
+	public byte valueFormat(int slot) {
+		return records[slot / RECORDS_PER_CHUNK].get(offset(slot) + VALUE_FORMAT);
+	}
+
+	@Override
+	public String name(int slot) {
+		ByteBuffer buffer = records[slot / RECORDS_PER_CHUNK];
+		int offset = offset(slot);
+		return getText(buffer.getLong(offset + TEXT_START), buffer.getInt(offset + NAME_LENGTH));
+	}
+
+	@Override
+	public String description(int slot) {
+		ByteBuffer buffer = records[slot / RECORDS_PER_CHUNK];
+		int offset = offset(slot);
+		long start = buffer.getLong(offset + TEXT_START) + Math.max(buffer.getInt(offset + NAME_LENGTH), 0);
+		return getText(start, buffer.getInt(offset + DESCRIPTION_LENGTH));
+	}
+
+	@Override
+	public void release(int slot) {
+		if (!released.get(slot)) {
+			released.set(slot);
+			wastedText += textLength(slot);
+		}
+	}
+
+	/**
+	 * Keeps the record buffers for the slots written next, and frees the text buffers.
+	 */
+	@Override
+	public void clear() {
+		slots = 0;
+		text.clear();
+		textSize = 0;
+		wastedText = 0;
+		released.clear();
+	}
+
+	/**
+	 * Creates a copy holding only the records of the first slots and the text still
+	 * in use, so a copy taken for each compaction of the journal costs what the
+	 * stored assets need rather than another set of full buffers. The last record
+	 * and text buffers are cut to their contents and grow again if written to.
+	 */
+	@Override
+	public AssetRecords copy(int slots) {
+		OffHeapAssetRecords copy = new OffHeapAssetRecords();
+		copy.records = new ByteBuffer[Math.max(records.length, 1)];
+		for (int chunk = 0; chunk * RECORDS_PER_CHUNK < slots; chunk++) {
+			int bytes = Math.min(RECORDS_PER_CHUNK, slots - chunk * RECORDS_PER_CHUNK) * RECORD_BYTES;
+			copy.records[chunk] = allocate(bytes).put(0, records[chunk], 0, bytes);
+		}
+		copy.slots = slots;
+		copy.released.or(released.get(0, slots));
+		copy.packText(text);
+		int last = copy.text.size() - 1;
+		if (last >= 0) {
+			int used = (int) (copy.textSize - (long) last * TEXT_CHUNK_BYTES);
+			copy.text.set(last, allocate(used).put(0, copy.text.get(last), 0, used));
+		}
+		return copy;
+	}
+
+	@Override
+	public long heapBytes() {
+		return records.length * 4L + text.size() * 4L + 200; // The buffer objects, not their contents
+	}
+
+	@Override
+	public long offHeapBytes() {
+		long bytes = 0;
+		for (ByteBuffer buffer : text) {
+			bytes += buffer.capacity();
+		}
+		for (ByteBuffer buffer : records) {
+			if (buffer != null) {
+				bytes += buffer.capacity();
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns the offset of a record within its buffer.
+	 *
+	 * @param slot The slot.
+	 * @return The offset in bytes.
+	 */
+	private static int offset(int slot) {
+		return (slot % RECORDS_PER_CHUNK) * RECORD_BYTES;
+	}
+
+	/**
+	 * Returns the bytes of text a slot takes.
+	 *
+	 * @param slot The slot.
+	 * @return The length of the name and description together.
+	 */
+	private int textLength(int slot) {
+		ByteBuffer buffer = records[slot / RECORDS_PER_CHUNK];
+		int offset = offset(slot);
+		return Math.max(buffer.getInt(offset + NAME_LENGTH), 0) + Math.max(buffer.getInt(offset + DESCRIPTION_LENGTH), 0);
+	}
+
+	/**
+	 * Encodes a string as UTF-8.
+	 *
+	 * @param value The string, or null.
+	 * @return The bytes, or null for null.
+	 */
+	private static byte[] encode(String value) {
+		return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+	}
+
+	/**
+	 * Reserves room for the text of one record. The text of a record never spans two
+	 * buffers; the unused end of a full buffer is skipped.
+	 *
+	 * @param length The number of bytes.
+	 * @return The offset of the reserved room across all text buffers.
+	 * @throws IllegalArgumentException If the text is longer than a text buffer.
+	 */
+	private long reserveText(int length) {
+		if (length > TEXT_CHUNK_BYTES) {
+			throw new IllegalArgumentException("Asset text longer than " + TEXT_CHUNK_BYTES + " bytes");
+		}
+		long used = textSize % TEXT_CHUNK_BYTES;
+		if (textSize > 0 && used + length > TEXT_CHUNK_BYTES && used != 0) {
+			wastedText += TEXT_CHUNK_BYTES - used;
+			textSize += TEXT_CHUNK_BYTES - used;
+		}
+		while (text.size() * (long) TEXT_CHUNK_BYTES < textSize + length) {
+			text.add(allocate(TEXT_CHUNK_BYTES));
+		}
+		int chunk = (int) (textSize / TEXT_CHUNK_BYTES);
+		if (length > 0 && text.get(chunk).capacity() < textSize % TEXT_CHUNK_BYTES + length) {
+			text.set(chunk, grow(text.get(chunk), TEXT_CHUNK_BYTES)); // The short last buffer of a copy
+		}
+		long start = textSize;
+		textSize += length;
+		return start;
+	}
+
+	/**
+	 * Copies bytes into the text area.
+	 *
+	 * @param start The offset across all text buffers.
+	 * @param bytes The bytes, or null for none.
+	 */
+	private void putText(long start, byte[] bytes) {
+		if (bytes != null && bytes.length > 0) {
+			text.get((int) (start / TEXT_CHUNK_BYTES)).put((int) (start % TEXT_CHUNK_BYTES), bytes);
+		}
+	}
+
+	/**
+	 * Decodes text from the text area.
+	 *
+	 * @param start The offset across all text buffers.
+	 * @param length The number of bytes, or NO_TEXT.
+	 * @return The text, or null for NO_TEXT.
+	 */
+	private String getText(long start, int length) {
+		if (length == NO_TEXT) {
+			return null;
+		}
+		if (length == 0) {
+			return "";
+		}
+		byte[] bytes = new byte[length];
+		text.get((int) (start / TEXT_CHUNK_BYTES)).get((int) (start % TEXT_CHUNK_BYTES), bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compacts the text once replaced records and released slots have left more than
+	 * half of it unused.
+	 */
+	private void compactIfWasteful() {
+		if (wastedText > textSize / 2 && wastedText > TEXT_CHUNK_BYTES) {
+			compactText();
+		}
+	}
+
+	/**
+	 * Copies the text of every slot into new buffers, dropping what replaced records
+	 * left behind. The old buffers are freed once they are no longer reachable.
+	 */
+	private void compactText() {
+		packText(new ArrayList<>(text));
+	}
+
+	/**
+	 * Writes the text of every slot into new buffers one after the other and points
+	 * the records at it. The text of released slots is left out and reads as missing
+	 * from then on.
+	 *
+	 * @param old The buffers the records point into now, which are left unchanged.
+	 */
+	private void packText(List<ByteBuffer> old) {
+		text.clear();
+		textSize = 0;
+		wastedText = 0;
+		for (int slot = 0; slot < slots; slot++) {
+			ByteBuffer buffer = records[slot / RECORDS_PER_CHUNK];
+			int offset = offset(slot);
+			if (released.get(slot)) {
+				buffer.putInt(offset + NAME_LENGTH, NO_TEXT);
+				buffer.putInt(offset + DESCRIPTION_LENGTH, NO_TEXT);
+			}
+			long start = buffer.getLong(offset + TEXT_START);
+			int length = textLength(slot);
+			long moved = reserveText(length);
+			if (length > 0) {
+				text.get((int) (moved / TEXT_CHUNK_BYTES)).put((int) (moved % TEXT_CHUNK_BYTES),
+						old.get((int) (start / TEXT_CHUNK_BYTES)), (int) (start % TEXT_CHUNK_BYTES), length);
+			}
+			buffer.putLong(offset + TEXT_START, moved);
+		}
+	}
+
+	/**
+	 * Copies a buffer into a larger one.
+	 *
+	 * @param buffer The buffer.
+	 * @param capacity The size of the new buffer in bytes.
+	 * @return The new buffer.
+	 */
+	private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+		return allocate(capacity).put(0, buffer, 0, buffer.capacity());
+	}
+
+	/**
+	 * Allocates a zeroed direct buffer in the native byte order.
+	 *
+	 * @param capacity The size in bytes.
+	 * @return The buffer.
+	 */
+	private static ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+	}
+}
@@ -0,0 +1,475 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import javafx.collections.ObservableListBase;
+
+/**
+ * The PagedAssetList class is the ObservableList behind the asset tables. It keeps
+ * no rows of its own: when the table asks for an index, the page holding it is
+ * fetched from the source list, and only the few pages around the viewport are
+ * kept. A row near the end of its page fetches the next page as well, so
+ * scrolling down finds it ready.
+ *
+ * The repository hands out its results as lists of ids over the asset store, so
+ * showing every asset costs four bytes per asset plus the cached pages, and
+ * setting the list on a table copies nothing.
+ *
+ * A table screen keeps one list for its whole life and swaps in each new result
+ * with {@link #setSource(List)}, which tells the table only which rows left and
+ * which arrived, so the selection, scroll position and cells survive a new search.
+ * Sorting reorders the ids on the typed fields of the store and keeps applying to
+ * later results.
+ *
+ * Added to the AssetRepository as a change listener, the list follows the changes
+ * made anywhere in the application: removed assets leave it, edited ones are
+ * redrawn, and assets added or edited into the result are appended, as found by
+ * the test given with the result. Only the rows that changed are reported.
+ *
+ * A result looked up in the background may have been read before or after changes
+ * the list already received while the lookup ran. The list therefore keeps the
+ * changes received since {@link #searchStarted()} and applies them to the result
+ * again when it arrives; applying a change the result already holds has no effect.
+ * A screen stops following the repository with {@link #stopFollowing()} when it
+ * is left, and looks its result up again when it is shown again.
+ */
+class PagedAssetList extends ObservableListBase<AssetInfo> implements AssetChanges.Listener {
+	static final int PAGE_SIZE = 64; // Rows fetched at once
+	static final int CACHED_PAGES = 6; // Pages kept, enough for a tall viewport and its look-ahead
+	static final int LOOK_AHEAD = 16; // Rows before the end of a page that fetch the next page
+	static final int BULK_CHANGES = 256; // Changed rows in one frame past which every row is reported as replaced
+
+	private List<AssetInfo> source; // Rows in table order
+	private AssetStore.SortKey[] sortKeys = {}; // Fields the rows are sorted by, the deciding one first
+	private boolean[] descending = {}; // Whether each sort field is in descending order
+	private Predicate<AssetInfo> matches; // Tells which added or edited assets belong in the rows, or null
+	private BitSet listed; // Ids of the rows, so changes to other assets are passed over at once
+	private Map<Integer, AssetChanges.Kind> missed; // Changes received since the search in progress started, or null
+	private boolean following = true; // Whether the screen wants the changes, guarded by this
+	private AssetRepository followed; // Repository the list is a listener of, or null, guarded by this
+	private final Map<Integer, AssetInfo[]> pages = new LinkedHashMap<Integer, AssetInfo[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, AssetInfo[]> eldest) {
+			return size() > CACHED_PAGES;
+		}
+	}; // Fetched pages by number, the least recently used first
+
+	/**
+	 * Creates a list over the given rows.
+	 *
+	 * @param source The rows, usually a result of the AssetRepository. Removing
+	 *               from this list removes from the source as well, so it must
+	 *               support remove(int) for deletes to work.
+	 */
+	PagedAssetList(List<AssetInfo> source) {
+		this.source = source;
+		this.listed = ids(source);
+	}
+
+	/**
+	 * Follows the changes made through a repository, unless the screen stopped
+	 * following since its last search started. May be called on any thread, so a
+	 * search can start following before it reads the assets.
+	 *
+	 * @param repository The repository.
+	 */
+	synchronized void follow(AssetRepository repository) {
+		if (following && followed == null) {
+			followed = repository;
+			repository.addChangeListener(this);
+		}
+	}
+
+	/**
+	 * Stops following the changes made through the repository, so a screen that is
+	 * left no longer takes them.
+	 */
+	void stopFollowing() {
+		synchronized (this) {
+			following = false;
+			if (followed != null) {
+				followed.removeChangeListener(this);
+				followed = null;
+			}
+		}
+		missed = null;
+	}
+
+	/**
+	 * Tells whether the rows follow the changes, so a screen shown again knows if
+	 * they must be looked up again.
+	 *
+	 * @return false once the screen stopped following, until its next search starts.
+	 */
+	synchronized boolean isFollowing() {
+		return following;
+	}
+
+	/**
+	 * Marks the start of a search whose result will be passed to
+	 * {@link #setSource(List, Predicate)}. The changes received from now on are
+	 * applied to that result as well, and the list follows the repository again
+	 * once the search calls {@link #follow(AssetRepository)}. Rows of assets removed
+	 * while the list was not following leave it at once, as they can no longer be
+	 * drawn while the search runs.
+	 */
+	void searchStarted() {
+		boolean stale;
+		synchronized (this) {
+			stale = !following;
+			following = true;
+		}
+		if (stale && source instanceof AssetStore.ViewList) {
+			BitSet unstored = ((AssetStore.ViewList) source).unstoredIds();
+			if (!unstored.isEmpty()) {
+				Map<Integer, AssetChanges.Kind> removals = new LinkedHashMap<>();
+				unstored.stream().forEach(id -> removals.put(id, AssetChanges.Kind.REMOVED));
+				assetsChanged(removals);
+			}
+		}
+		missed = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Replaces the rows with a new result that changes only remove from and redraw.
+	 *
+	 * @param rows The new rows, usually a result of the AssetRepository.
+	 * @see #setSource(List, Predicate)
+	 */
+	void setSource(List<AssetInfo> rows) {
+		setSource(rows, null);
+	}
+
+	/**
+	 * Replaces the rows with a new result, sorted like the current ones. When the
+	 * rows both results share are in the same order, which holds for two results of
+	 * the same lookup, only the rows that left and arrived are reported; otherwise
+	 * every row is reported as replaced.
+	 *
+	 * @param rows The new rows, usually a result of the AssetRepository.
+	 * @param matches The test the result was looked up by, so added and edited assets
+	 *                can be placed in or taken out of it; null keeps the rows to the
+	 *                ones listed now.
+	 */
+	void setSource(List<AssetInfo> rows, Predicate<AssetInfo> matches) {
+		if (sortKeys.length > 0 && rows instanceof AssetStore.ViewList) {
+			((AssetStore.ViewList) rows).sort(sortKeys, descending);
+		}
+		List<AssetInfo> old = source;
+		source = rows;
+		pages.clear();
+		BitSet oldIds = listed;
+		BitSet newIds = ids(rows);
+		listed = newIds;
+		this.matches = matches;
+		beginChange();
+		if (!sameOrder(old, rows, oldIds, newIds)) {
+			nextReplace(0, rows.size(), old);
+		} else {
+			int oldIndex = 0;
+			int newIndex = 0;
+			while (oldIndex < old.size() || newIndex < rows.size()) {
+				// Walks both results in step; newIndex is also where the old row now sits
+				int removed = oldIndex;
+				while (oldIndex < old.size() && !newIds.get(id(old, oldIndex))) {
+					oldIndex++;
+				}
+				if (oldIndex > removed) {
+					nextRemove(newIndex, old.subList(removed, oldIndex)); // One change per run of rows that left
+				}
+				int added = newIndex;
+				while (newIndex < rows.size() && !oldIds.get(id(rows, newIndex))) {
+					newIndex++;
+				}
+				if (newIndex > added) {
+					nextAdd(added, newIndex);
+				}
+				if (oldIndex < old.size() && newIndex < rows.size() && oldIndex == removed && newIndex == added) {
+					oldIndex++; // A row both results share
+					newIndex++;
+				}
+			}
+		}
+		endChange();
+		Map<Integer, AssetChanges.Kind> changes = missed;
+		missed = null;
+		if (changes != null && !changes.isEmpty()) {
+			assetsChanged(changes); // The search may have read the assets before these changes
+		}
+	}
+
+	/**
+	 * Sorts the rows, and every later result, by one or more fields and tells the
+	 * table how the rows moved. Rows that tie keep their order.
+	 *
+	 * @param keys The fields to sort by, the deciding one first; none keeps the current order.
+	 * @param descending Whether each field sorts in descending order.
+	 */
+	void sort(AssetStore.SortKey[] keys, boolean[] descending) {
+		this.sortKeys = keys.clone();
+		this.descending = descending.clone();
+		if (keys.length == 0 || !(source instanceof AssetStore.ViewList) || source.size() < 2) {
+			return;
+		}
+		int[] positions = ((AssetStore.ViewList) source).sort(keys, descending);
+		int[] permutation = new int[positions.length]; // New position by old position
+		for (int i = 0; i < positions.length; i++) {
+			permutation[positions[i]] = i;
+		}
+		pages.clear();
+		beginChange();
+		nextPermutation(0, positions.length, permutation);
+		endChange();
+	}
+
+	/**
+	 * Applies the changes made through the repository. Telling whether a changed asset
+	 * is listed is a lookup in the ids of the rows, so changes to other assets cost
+	 * nothing more; the rows of listed assets are found in one scan of the ids for
+	 * the removed ones and one for the edited ones, however many of them changed.
+	 * An edited row is reported as replaced by itself, which is how a table learns
+	 * to redraw a row whose item is still equal. In sorted rows an arriving row is
+	 * inserted where it sorts, and edited rows that no longer sort in place are
+	 * moved there as well.
+	 */
+	@Override
+	public void assetsChanged(Map<Integer, AssetChanges.Kind> changes) {
+		if (missed != null) {
+			for (Map.Entry<Integer, AssetChanges.Kind> change : changes.entrySet()) {
+				if (change.getValue() == AssetChanges.Kind.REMOVED || !missed.containsKey(change.getKey())) {
+					missed.put(change.getKey(), change.getValue()); // A removal outweighs any earlier change
+				}
+			}
+		}
+		if (!(source instanceof AssetStore.ViewList)) {
+			return; // Rows not taken from the store, such as an empty result
+		}
+		AssetStore.ViewList rows = (AssetStore.ViewList) source;
+		BitSet leaving = new BitSet(); // Listed assets removed or edited out of the result
+		BitSet edited = new BitSet(); // Listed assets edited that stay
+		List<Integer> arriving = new ArrayList<>(); // Assets added or edited into the result
+		for (Map.Entry<Integer, AssetChanges.Kind> change : changes.entrySet()) {
+			int id = change.getKey();
+			boolean wasListed = listed.get(id);
+			boolean belongs;
+			if (change.getValue() == AssetChanges.Kind.REMOVED) {
+				belongs = false;
+			} else if (matches == null) {
+				belongs = wasListed;
+			} else {
+				belongs = matches.test(rows.lookup(id));
+			}
+			if (wasListed && belongs) {
+				edited.set(id);
+			} else if (wasListed) {
+				leaving.set(id);
+			} else if (belongs) {
+				arriving.add(id);
+			}
+		}
+		if (leaving.isEmpty() && edited.isEmpty() && arriving.isEmpty()) {
+			return;
+		}
+		// Listeners pay for each reported change, so a bulk import is cheaper as a replacement
+		boolean bulk = leaving.cardinality() + edited.cardinality() + arriving.size() > BULK_CHANGES;
+		List<AssetInfo> before = bulk ? rows.copy() : null;
+		pages.clear(); // Edited rows are read again, and rows after a removed one moved up
+		beginChange();
+		removeRows(rows, leaving, bulk);
+		listed.andNot(leaving);
+		boolean sorted = sortKeys.length > 0;
+		if (!bulk && sorted && !edited.isEmpty() && !rows.inOrder(edited, sortKeys, descending)) {
+			// An edit moved rows in the sort order; the rest are still sorted once they are taken out
+			removeRows(rows, edited, false);
+			edited.stream().forEach(arriving::add);
+			edited.clear();
+		}
+		if (!bulk && !edited.isEmpty()) {
+			for (int i = 0; i < rows.size(); i++) {
+				if (edited.get(rows.id(i))) {
+					nextSet(i, rows.get(i));
+				}
+			}
+		}
+		for (int id : arriving) {
+			listed.set(id);
+			if (bulk || !sorted) {
+				rows.addId(id); // Lands at the end, where an unsorted result puts a new asset
+			} else {
+				int position = rows.insertId(id, sortKeys, descending);
+				nextAdd(position, position + 1);
+			}
+		}
+		if (bulk) {
+			if (sorted) {
+				rows.sort(sortKeys, descending);
+			}
+			nextReplace(0, rows.size(), before);
+		} else if (!arriving.isEmpty() && !sorted) {
+			nextAdd(rows.size() - arriving.size(), rows.size());
+		}
+		endChange();
+	}
+
+	/**
+	 * Takes listed assets out of the rows, telling the listeners of each run of
+	 * rows that left unless the whole list is reported as replaced.
+	 *
+	 * @param rows The rows.
+	 * @param ids The ids of the assets to take out, each of them listed.
+	 * @param bulk Whether the change is reported as a replacement of every row.
+	 */
+	private void removeRows(AssetStore.ViewList rows, BitSet ids, boolean bulk) {
+		if (ids.isEmpty()) {
+			return;
+		}
+		int[] positions = new int[ids.cardinality()];
+		int[] removed = new int[positions.length];
+		rows.removeIds(ids, positions, removed);
+		for (int start = 0; !bulk && start < positions.length;) {
+			int end = start + 1;
+			while (end < positions.length && positions[end] == positions[end - 1] + 1) {
+				end++; // One change per run of rows that left
+			}
+			List<AssetInfo> run = new ArrayList<>(end - start);
+			for (int i = start; i < end; i++) {
+				run.add(rows.lookup(removed[i]));
+			}
+			nextRemove(positions[start] - start, run); // Earlier runs have moved the rows up
+			start = end;
+		}
+	}
+
+	@Override
+	public AssetInfo get(int index) {
+		Objects.checkIndex(index, source.size());
+		int page = index / PAGE_SIZE;
+		int row = index % PAGE_SIZE;
+		if (row >= PAGE_SIZE - LOOK_AHEAD && (page + 1) * PAGE_SIZE < source.size()) {
+			page(page + 1);
+		}
+		return page(page)[row];
+	}
+
+	@Override
+	public int size() {
+		return source.size();
+	}
+
+	/**
+	 * Removes a row and tells the listeners, which is how the tables delete an asset.
+	 * Pages from the removed row on are dropped, as their rows have moved up.
+	 */
+	@Override
+	public AssetInfo remove(int index) {
+		AssetInfo removed = get(index);
+		source.remove(index);
+		listed.clear(removed.getId());
+		int page = index / PAGE_SIZE;
+		pages.keySet().removeIf(number -> number >= page);
+		beginChange();
+		nextRemove(index, removed);
+		endChange();
+		return removed;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	/**
+	 * Asks the source, which can find a row without fetching every page.
+	 */
+	@Override
+	public int indexOf(Object o) {
+		return source.indexOf(o);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	/**
+	 * Checks that the rows two results share come in the same order in both.
+	 *
+	 * @param old The old rows.
+	 * @param rows The new rows.
+	 * @param oldIds The ids of the old rows.
+	 * @param newIds The ids of the new rows.
+	 * @return true if the shared rows are in the same order.
+	 */
+	private static boolean sameOrder(List<AssetInfo> old, List<AssetInfo> rows, BitSet oldIds, BitSet newIds) {
+		int newIndex = 0;
+		for (int oldIndex = 0; oldIndex < old.size(); oldIndex++) {
+			int id = id(old, oldIndex);
+			if (newIds.get(id)) {
+				while (!oldIds.get(id(rows, newIndex))) {
+					newIndex++; // Skips rows only the new result has
+				}
+				if (id(rows, newIndex++) != id) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the ids of a list of rows.
+	 *
+	 * @param rows The rows.
+	 * @return The ids.
+	 */
+	private static BitSet ids(List<AssetInfo> rows) {
+		BitSet ids = new BitSet();
+		for (int i = 0; i < rows.size(); i++) {
+			ids.set(id(rows, i));
+		}
+		return ids;
+	}
+
+	/**
+	 * Reads the id of a row, without creating a view if the rows come from the store.
+	 *
+	 * @param rows The rows.
+	 * @param index The position of the row.
+	 * @return The id.
+	 */
+	private static int id(List<AssetInfo> rows, int index) {
+		return rows instanceof AssetStore.ViewList ? ((AssetStore.ViewList) rows).id(index) : rows.get(index).getId();
+	}
+
+	/**
+	 * Returns a page, fetching it from the source if it is not cached.
+	 *
+	 * @param page The page number.
+	 * @return The rows of the page; the last page may be shorter.
+	 */
+	private AssetInfo[] page(int page) {
+		AssetInfo[] rows = pages.get(page);
+		if (rows == null) {
+			int from = page * PAGE_SIZE;
+			rows = new AssetInfo[Math.min(PAGE_SIZE, source.size() - from)];
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = source.get(from + i);
+			}
+			pages.put(page, rows);
+		}
+		return rows;
+	}
+}
@@ -1,43 +1,33 @@
 package application;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * Controller class for the NewCategory.fxml file. This class handles the logic
  * and functionality of the UI components defined in the FXML file.
  */
-public class SearchController {
-	final String filePath_assets = "assets.csv";
-	private List<AssetInfo> assets = new ArrayList<AssetInfo>();
+public class SearchController implements Navigator.Refreshable {
+	private static final Duration SEARCH_DELAY = Duration.millis(200); // Pause in typing before a search starts
+	private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY); // Restarted on every keystroke
+	private TableLoader loader; // Loads the assets and runs searches off the JavaFX Application Thread
+	private List<AssetInfo> assets = new ArrayList<AssetInfo>(); // Shared view of the repository's assets
 	private AssetInfo selectedAsset;
 	@FXML
 	TextField assetName; // Text field for entering category name
 	@FXML
+	CheckBox fuzzySearch; // Check box for tolerating typos in the asset name
+	@FXML
 	TableView<AssetInfo> tableView = new TableView<>(); //TableView for displaying asset information.
 
 	@FXML
@@ -60,103 +50,91 @@ public class SearchController {
 	@FXML
 	TableColumn<AssetInfo, String> warrantyExpirationDate; //TableColumn for displaying asset warranty expiration dates
 
-	ObservableList<AssetInfo> list = FXCollections.observableArrayList(assets); //ObservableList for storing and managing asset information
+	PagedAssetList list = new PagedAssetList(assets); //ObservableList for storing and managing asset information; each search swaps in its result
 
 	/**
 	 * Initializes the controller class. This method is automatically called after
 	 * the FXML file has been loaded.
 	 */
 	public void initialize() {
-		loadAssetsFromCSV();
-
-		name.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("name"));
-		category.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("category"));
-		locationName.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("location"));
-		purchaseDate.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("purchaseDate"));
-		description.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("description"));
-		purchaseValue.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("purchasedValue"));
-		warrantyExpirationDate.setCellValueFactory(new PropertyValueFactory<AssetInfo, String>("warrantyExpirationDate"));
+		loader = new TableLoader(tableView);
+
+		// Reads each column through its getter, without reflection
+		AssetColumns.bind(tableView, name, category, locationName, purchaseDate, description, purchaseValue, warrantyExpirationDate);
 		
 
 		tableView.setItems(list);
-	}
 
-	public void loadAssetsFromCSV() {
-		String filePath = "assets.csv"; // Path to the CSV file
-
-		// Check if the file exists
-		if (Files.exists(Paths.get(filePath))) {
-			try {
-				// Read all lines from the file and process each line to create AssetInfo
-				// objects
-
-				assets = Files.readAllLines(Paths.get(filePath)).stream().map(line -> line.split(","))
-						.map(assetDetails -> parseAsset(assetDetails)).collect(Collectors.toList());
+		// Search as the user types, once typing pauses
+		searchDelay.setOnFinished(event -> startSearch());
+		assetName.textProperty().addListener((observable, oldText, newText) -> searchDelay.playFromStart());
+	}
 
-			} catch (IOException e) {
-				System.err.println("Error reading CSV file: " + e.getMessage());
-			}
-		} else {
-			System.err.println("CSV file does not exist");
-		}
+	/**
+	 * Loads the assets shared by the AssetRepository, which parses the CSV file
+	 * only once per run, and follows the changes made to them.
+	 */
+	public void loadAssets() {
+		AssetRepository repository = AssetRepository.getInstance();
+		assets = repository.getAssets();
+		list.follow(repository); // Adds, edits and deletes made on any screen reach the table
 	}
 
-	// Helper method to parse a single asset entry from the CSV
 	/**
-	 * Parses a single asset entry from the CSV file.
-	 *
-	 * @param assetDetails The array containing asset details to parse.
-	 * @return The parsed AssetInfo object.
+	 * Loads the assets when the page is first shown. The first screen opened waits
+	 * for the repository to parse the CSV file.
 	 */
-	private AssetInfo parseAsset(String[] assetDetails) {
-		AssetInfo asset = new AssetInfo();
-		asset.setName(assetDetails[0].trim());
-		asset.setCategory(assetDetails[1].trim());
-		asset.setLocation(assetDetails[2].trim());
-		asset.setPurchaseDate(parseDate(assetDetails[3].trim()));
-		asset.setDescription(assetDetails[4].trim());
-		asset.setPurchasedValue(assetDetails[5].trim());
-		asset.setWarrantyExpirationDate(parseDate(assetDetails[6].trim()));
-		return asset;
+	@Override
+	public void load() {
+		loader.load("Loading assets...", () -> {
+			loadAssets();
+			return assets;
+		}, loaded -> {
+		});
 	}
 
-	// Helper method to parse dates, handling "No date provided"
 	/**
-	 * Parses a date string into a LocalDate object.
-	 *
-	 * @param date The date string to parse.
-	 * @return The parsed LocalDate object, or null if the date string is "No date provided".
+	 * Runs the search again when the page is shown again after going home, or after
+	 * a fuzzy search, as its matches are ranked by the search itself. Other results
+	 * already follow the edits and deletes made elsewhere.
 	 */
-	private LocalDate parseDate(String date) {
-		if (date.equals("No date provided")) {
-			return null;
-		} else {
-			try {
-				return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
-			} catch (DateTimeParseException e) {
-				System.err.println("Error parsing date: " + e.getMessage());
-				return null;
-			}
+	@Override
+	public void refresh() {
+		searchDelay.stop();
+		if ((fuzzySearch.isSelected() || !list.isFollowing()) && !tableView.getItems().isEmpty()) {
+			startSearch();
 		}
 	}
 
 	/**
-     * Handles the search action for assets by name.
+     * Handles the search action for assets by name. The search starts at once
+     * instead of waiting for typing to pause.
      */
 	@FXML
 	public void searchAssetsByName() {
-		String searchText = assetName.getText().toLowerCase(); // Get the search text and convert it to lower case
-
-		System.out.println("Starting search...");
-		ObservableList<AssetInfo> filteredAssets = FXCollections.observableArrayList();
-		for (AssetInfo asset : assets) {
-			if (asset.getName().toLowerCase().contains(searchText.toLowerCase())) {
-				System.out.println("Match found: " + asset.getName());
-				filteredAssets.add(asset);
-			}
-		}
-		System.out.println("Number of matches: " + filteredAssets.size()); 
-		tableView.setItems(filteredAssets);
+		searchDelay.stop();
+		startSearch();
+	}
+
+	/**
+	 * Looks up the assets whose name contains the search text, or nearly matches it
+	 * when fuzzy search is selected, on a background thread and shows them in the
+	 * table in one batch. A search that is still queued or running when a newer one
+	 * starts is cancelled, and its results are never shown.
+	 */
+	private void startSearch() {
+		String searchText = assetName.getText(); // The repository ignores case
+		boolean fuzzy = fuzzySearch.isSelected();
+
+		AssetQuery query = new AssetQuery(); // Tells which assets added or edited later match as well
+		query.setName(searchText);
+
+		list.searchStarted();
+		loader.load("Searching...", () -> {
+			AssetRepository repository = AssetRepository.getInstance();
+			list.follow(repository); // Before reading, so no change made meanwhile is missed
+			return fuzzy ? repository.findByNameFuzzy(searchText) : repository.findByName(searchText);
+		}, matches -> list.setSource(matches, fuzzy ? null : query::matches)); // Reports only the rows that changed
 	}
 
 	/**
@@ -169,75 +147,19 @@ public class SearchController {
 
 		if (selectedAsset != null) {
 
-			tableView.getItems().remove(selectedAsset);
-			assets.remove(selectedAsset);
-
-			overWriteCSV();
-			// debug messages
-			System.out.println("Deleted: " + selectedAsset.getName());
+			String name = selectedAsset.getName(); // A view of a removed asset can no longer be read
+			// The change reaches this table and every other screen listing the asset
+			if (AssetRepository.getInstance().remove(selectedAsset)) {
+				// debug messages
+				System.out.println("Deleted: " + name);
+			} else {
+				System.err.println("Could not delete: " + name);
+			}
 		} else {
 			System.out.println("No item selected to delete.");
 		}
 	}
 
-	// Overwrites deleted asset results to CSV file
-	private void overWriteCSV() {
-		clearCSV();
-		for (AssetInfo itr : assets) {
-			saveAssetToCSV(itr);
-		}
-	}
-
-	// Clears the contents of the CSV file
-	public void clearCSV() {
-		// file path for the CSV file at instance variable
-		try {
-			// Write an empty list to the file, truncating it to zero size
-			Files.write(Paths.get(filePath_assets), Collections.emptyList(), StandardOpenOption.TRUNCATE_EXISTING);
-			// testing message
-			System.out.println("CSV file has been cleared.");
-		} catch (IOException e) {
-			// testing message
-			System.err.println("Error clearing the CSV file: " + e.getMessage());
-		}
-	}
-
-	/**
-     * Saves the asset information to the CSV file.
-     * 
-     * @param asset The asset to be saved.
-     */
-	private void saveAssetToCSV(AssetInfo asset) {
-		// file path for the CSV file at instance variable
-		try {
-			// Check if the file does not exist and create it if necessary
-			if (!Files.exists(Paths.get(filePath_assets))) {
-				Files.createFile(Paths.get(filePath_assets));
-			}
-			// Write the assets details to the CSV file
-			try (FileWriter fw = new FileWriter(filePath_assets, true);
-					BufferedWriter bw = new BufferedWriter(fw);
-					PrintWriter out = new PrintWriter(bw)) {
-				out.print(String.join(", ", asset.getName(), asset.getCategory(), asset.getLocation(),
-						asset.getPurchaseDate(), // != null ?
-													// asset.getPurchaseDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-													// : "",
-						asset.getDescription(), asset.getPurchasedValue(), asset.getWarrantyExpirationDate()// != null ?
-																											// asset.getWarrantyExpirationDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-																											// : ""
-				));
-				out.println();// Move to a new line in the file
-			} catch (IOException e) {
-				System.err.println("Error writing to CSV file: " + e.getMessage());// Handle possible I/O errors
-			}
-		} catch (IOException ex) {
-			System.err.println("An error occurred initializing the CSV file: " + ex.getMessage());// Handle file
-																									// creation errors
-		}
-	}
-
-	//
-
 	@FXML
 	public void editSelectedAsset() {
 		// Get the selected item from the TableView
@@ -271,21 +193,12 @@ public class SearchController {
 	 */
 	@FXML
 	public void goHome() {
-		try {// Load the FXML file for the welcome page
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Welcome.fxml"));
-			Parent root = loader.load();
-
-			// Get the stage from the current scene
+		searchDelay.stop();
+		loader.cancel();
+		list.stopFollowing(); // Looked up again when the page is shown again
+		try {
 			Stage stage = (Stage) assetName.getScene().getWindow();
-
-			// Set the new scene for the stage
-			Scene scene = new Scene(root);
-
-			// Set the title of the stage
-			stage.setTitle("Welcome to TrackWise");
-
-			stage.setScene(scene);
-			stage.show();
+			Navigator.show(stage, Navigator.WELCOME, "Welcome to TrackWise");
 		} catch (IOException e) {
 			e.printStackTrace();
 			// Handle the exception appropriately
@@ -294,21 +207,13 @@ public class SearchController {
 
 	@FXML
 	private void editAssetPage() {
-			int index = assets.indexOf(selectedAsset);
+		searchDelay.stop();
+		loader.cancel();
 		try {
 			
-			FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/EditAsset.fxml")); 
-			Parent root = loader.load(); // Loads the root element of the FXML file
-			
-			EditAssetController editAssetController = loader.getController();
-			editAssetController.initialize(assets, index);
-			
 			Stage stage = (Stage) assetName.getScene().getWindow();
-			Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-
-			stage.setScene(scene); // Sets the scene to the stage
-			stage.setTitle("Edit Asset"); // Sets the title of the stage
-			stage.show(); // Shows the stage
+			EditAssetController editAssetController = Navigator.show(stage, Navigator.EDIT_ASSET, "Edit Asset");
+			editAssetController.initialize(selectedAsset);
 		} catch (Exception e) {
 			e.printStackTrace();// Prints the stack trace if an exception occurs
 		}
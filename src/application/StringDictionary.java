@@ -0,0 +1,121 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The StringDictionary class gives each distinct value of a low-cardinality field,
+ * such as the category or the location, a small int code and one canonical String
+ * instance. Columns then store the code instead of a reference, assets share one
+ * String per value instead of holding a copy each, and two canonical values are
+ * equal exactly when they are the same reference.
+ *
+ * The process-wide {@link #CATEGORIES} and {@link #LOCATIONS} dictionaries are
+ * seeded from categories.csv and locations.csv and grow as new values appear.
+ * Codes are never reassigned, so they stay valid for the life of the process.
+ */
+class StringDictionary {
+	static final int NONE = -1; // Code of a null value
+	static final StringDictionary CATEGORIES = seed(Paths.get("categories.csv")); // Category names
+	static final StringDictionary LOCATIONS = seed(Paths.get("locations.csv")); // Location names
+
+	private final Map<String, Integer> codes = new HashMap<>(); // Value to code
+	private volatile String[] values = new String[16]; // Code to value; replaced, never changed in place, once full
+	private int size; // Number of values
+
+	/**
+	 * Returns the code of a value, adding the value if it is new.
+	 *
+	 * @param value The value, or null.
+	 * @return The code, or NONE for null.
+	 */
+	synchronized int encode(String value) {
+		if (value == null) {
+			return NONE;
+		}
+		Integer code = codes.get(value);
+		if (code != null) {
+			return code;
+		}
+		String[] current = values;
+		if (size == current.length) {
+			current = Arrays.copyOf(current, size * 2);
+		}
+		current[size] = value;
+		values = current; // Publishes the value before its code is handed out
+		codes.put(value, size);
+		return size++;
+	}
+
+	/**
+	 * Returns the canonical instance of a value, adding the value if it is new.
+	 *
+	 * @param value The value, or null.
+	 * @return The shared instance equal to the value, or null for null.
+	 */
+	String intern(String value) {
+		return decode(encode(value));
+	}
+
+	/**
+	 * Returns the value of a code.
+	 *
+	 * @param code A code returned by {@link #encode(String)}, or NONE.
+	 * @return The value, or null for NONE.
+	 */
+	String decode(int code) {
+		return code == NONE ? null : values[code];
+	}
+
+	/**
+	 * Returns the number of distinct values.
+	 *
+	 * @return The number of codes handed out.
+	 */
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Estimates the heap memory taken by the dictionary.
+	 *
+	 * @return The size in bytes.
+	 */
+	synchronized long memoryBytes() {
+		long bytes = 16 + values.length * 4L + codes.size() * 48L; // Array, map entries and boxed codes
+		for (int i = 0; i < size; i++) {
+			bytes += 40 + values[i].length(); // String header and Latin-1 bytes
+		}
+		return bytes;
+	}
+
+	/**
+	 * Creates a dictionary holding the names listed in a file, one per line. Lines of
+	 * locations.csv continue with a description after a comma, which is left out.
+	 * A missing file leaves the dictionary empty.
+	 *
+	 * @param path The file listing the names.
+	 * @return The dictionary.
+	 */
+	private static StringDictionary seed(Path path) {
+		StringDictionary dictionary = new StringDictionary();
+		if (Files.exists(path)) {
+			try {
+				for (String line : Files.readAllLines(path)) {
+					String name = line.split(",", 2)[0].trim();
+					if (!name.isEmpty()) {
+						dictionary.encode(name);
+					}
+				}
+			} catch (IOException e) {
+				System.err.println("Error loading " + path + ": " + e.getMessage());
+			}
+		}
+		return dictionary;
+	}
+}
@@ -0,0 +1,125 @@
+package application;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+
+/**
+ * The TableLoader class runs the slow work behind a table screen, such as loading
+ * the repository or looking up matches, off the JavaFX Application Thread. While
+ * the work runs the table shows a progress placeholder; when it is done the result
+ * is handed to the screen on the JavaFX Application Thread.
+ *
+ * A loader runs one piece of work at a time. Starting a new one cancels the
+ * previous one, and a cancelled piece of work never reaches the screen, so a
+ * screen cancels its loader when the user navigates away. Cancelling does not
+ * interrupt the work: it may be reading files, which an interrupt closes, so it
+ * runs to the end and its result is dropped.
+ */
+class TableLoader {
+	private static final ExecutorService EXECUTOR = createExecutor(); // Runs the work of every loader
+
+	private final TableView<?> table; // Table showing the progress
+	private final Node placeholder; // Placeholder of the table when nothing is loading
+	private Task<?> current; // Work in progress, or null
+
+	/**
+	 * Creates a loader for a table.
+	 *
+	 * @param table The table to show the progress in.
+	 */
+	TableLoader(TableView<?> table) {
+		this.table = table;
+		this.placeholder = table.getPlaceholder();
+	}
+
+	/**
+	 * Runs work in the background, cancelling any work still running.
+	 *
+	 * @param <T> The type of the result.
+	 * @param message The text shown under the progress indicator.
+	 * @param work The work, run on a background thread.
+	 * @param done Receives the result on the JavaFX Application Thread.
+	 */
+	<T> void load(String message, Callable<T> work, Consumer<T> done) {
+		cancel();
+		Task<T> task = new Task<T>() {
+			@Override
+			protected T call() throws Exception {
+				return work.call();
+			}
+		};
+		task.setOnSucceeded(event -> {
+			if (task == current) { // Results of superseded work are dropped
+				current = null;
+				table.setPlaceholder(placeholder);
+				done.accept(task.getValue());
+			}
+		});
+		task.setOnFailed(event -> {
+			if (task == current) {
+				current = null;
+				table.setPlaceholder(new Label("Could not load assets"));
+			}
+			System.err.println("Error loading assets: " + task.getException().getMessage());
+		});
+		current = task;
+		table.setPlaceholder(progress(message));
+		EXECUTOR.execute(task);
+	}
+
+	/**
+	 * Cancels the work in progress, if any, so its result is never shown. The work
+	 * is not interrupted, and work the repository shares between screens, such as
+	 * its first load, still completes.
+	 */
+	void cancel() {
+		if (current != null) {
+			current.cancel(false);
+			current = null;
+			table.setPlaceholder(placeholder);
+		}
+	}
+
+	/**
+	 * Creates the placeholder shown while work runs.
+	 *
+	 * @param message The text under the progress indicator.
+	 * @return The placeholder.
+	 */
+	private static Node progress(String message) {
+		ProgressIndicator indicator = new ProgressIndicator();
+		indicator.setMaxSize(40, 40);
+		VBox box = new VBox(10, indicator, new Label(message));
+		box.setAlignment(Pos.CENTER);
+		return box;
+	}
+
+	/**
+	 * Creates the executor for the work. Virtual threads are used where the Java
+	 * runtime has them; otherwise a pool of daemon threads, so the work never keeps
+	 * the application from exiting.
+	 *
+	 * @return The executor.
+	 */
+	private static ExecutorService createExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread thread = new Thread(r, "table-loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * The TrigramIndex class finds assets whose name contains a piece of text without
+ * looking at every name. Each lowercased name is split into its overlapping
+ * three-character sequences (trigrams), and the index maps every trigram to the
+ * ids of the names containing it. A query intersects the id sets of its own
+ * trigrams, smallest first, and checks the few remaining candidates against the
+ * full text.
+ *
+ * Queries of one or two characters have no trigram. For them the index also keeps
+ * the first one and two characters of every word in a name, so a short query
+ * matches names with a word starting with it.
+ */
+class TrigramIndex implements AssetIndex {
+	private static final long PREFIX = 1L << 48; // Marks a packed word prefix apart from a trigram
+
+	private long[] keys = new long[1024]; // Open-addressed table of packed trigrams and word prefixes; 0 is free
+	private IdSet[] postings = new IdSet[1024]; // Asset ids for the key in the same slot
+	private int used; // Number of occupied slots
+
+	/**
+	 * Lowercases a name or query the same way for indexing and searching.
+	 *
+	 * @param text The text to normalize.
+	 * @return The normalized text.
+	 */
+	static String normalize(String text) {
+		return text.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Checks a name against a query the way {@link #search} does, without the index.
+	 *
+	 * @param name The normalized name.
+	 * @param query The normalized, non-empty query.
+	 * @return true if the name matches the query.
+	 */
+	static boolean matches(String name, String query) {
+		if (query.length() >= 3) {
+			return name.contains(query);
+		}
+		for (int i = 0; i < query.length(); i++) {
+			if (Character.isWhitespace(query.charAt(i))) {
+				return false; // Word prefixes hold no spaces
+			}
+		}
+		for (int i = name.indexOf(query); i >= 0; i = name.indexOf(query, i + 1)) {
+			if (i == 0 || Character.isWhitespace(name.charAt(i - 1))) {
+				return true; // Start of a word
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns an upper bound on the number of matches of a query, read from the index
+	 * without resolving any candidates.
+	 *
+	 * @param query The normalized, non-empty query.
+	 * @return The size of the smallest id set the query would start from.
+	 */
+	int estimate(String query) {
+		if (query.length() < 3) {
+			IdSet ids = get(packPrefix(query, 0, query.length()));
+			return ids != null ? ids.size() : 0;
+		}
+		int estimate = Integer.MAX_VALUE;
+		for (int i = 0; i + 3 <= query.length(); i++) {
+			IdSet ids = get(pack(query, i));
+			estimate = Math.min(estimate, ids != null ? ids.size() : 0);
+		}
+		return estimate;
+	}
+
+	@Override
+	public void add(AssetInfo asset) {
+		int id = asset.getId();
+		for (long key : keys(normalize(asset.getName()))) {
+			int slot = slot(key);
+			if (postings[slot] == null) {
+				keys[slot] = key;
+				postings[slot] = new IdSet();
+				if (++used * 2 > keys.length) {
+					grow();
+					slot = slot(key);
+				}
+			}
+			postings[slot].add(id);
+		}
+	}
+
+	@Override
+	public void remove(AssetInfo asset) {
+		int id = asset.getId();
+		for (long key : keys(normalize(asset.getName()))) {
+			IdSet ids = get(key);
+			if (ids != null) {
+				ids.remove(id); // An emptied set keeps its slot, so it is found again if the key returns
+			}
+		}
+	}
+
+	@Override
+	public void update(AssetInfo current, AssetInfo updated) {
+		if (!normalize(current.getName()).equals(normalize(updated.getName()))) {
+			remove(current);
+			add(updated);
+		}
+	}
+
+	/**
+	 * Finds the assets whose name contains the query, or for one- and two-character
+	 * queries, whose name has a word starting with it. An empty query is not handled
+	 * here; it matches every asset.
+	 *
+	 * @param query The normalized, non-empty query.
+	 * @param lookup Returns the stored asset for an id, used to verify candidates.
+	 * @return The matching ids in ascending order.
+	 */
+	int[] search(String query, IntFunction<AssetInfo> lookup) {
+		if (query.length() < 3) {
+			IdSet ids = get(packPrefix(query, 0, query.length()));
+			return ids != null ? ids.toArray() : new int[0];
+		}
+
+		// Gather the id sets of the query's trigrams, smallest first
+		List<IdSet> lists = new ArrayList<>();
+		for (int i = 0; i + 3 <= query.length(); i++) {
+			IdSet ids = get(pack(query, i));
+			if (ids == null || ids.size() == 0) {
+				return new int[0]; // A trigram no name contains
+			}
+			lists.add(ids);
+		}
+		lists.sort(Comparator.comparingInt(IdSet::size));
+
+		IdSet smallest = lists.get(0);
+		int[] result = new int[smallest.size()];
+		int count = 0;
+		candidates:
+		for (int i = 0; i < smallest.size(); i++) {
+			int id = smallest.get(i);
+			for (int j = 1; j < lists.size(); j++) {
+				if (!lists.get(j).contains(id)) {
+					continue candidates;
+				}
+			}
+			// Every trigram occurs in the name, but possibly not next to each other
+			if (normalize(lookup.apply(id).getName()).contains(query)) {
+				result[count++] = id;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * Returns the ids stored for a key.
+	 *
+	 * @param key The packed trigram or word prefix.
+	 * @return The ids, or null if the key was never indexed.
+	 */
+	private IdSet get(long key) {
+		return postings[slot(key)];
+	}
+
+	/**
+	 * Finds the slot holding a key, or the free slot where it belongs.
+	 *
+	 * @param key The packed trigram or word prefix, never 0.
+	 * @return The slot.
+	 */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+		while (postings[slot] != null && keys[slot] != key) {
+			slot = (slot + 1) & mask; // Linear probing
+		}
+		return slot;
+	}
+
+	/**
+	 * Doubles the table and moves every key to its new slot.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		IdSet[] oldPostings = postings;
+		keys = new long[oldKeys.length * 2];
+		postings = new IdSet[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldPostings[i] != null) {
+				int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				postings[slot] = oldPostings[i];
+			}
+		}
+	}
+
+	/**
+	 * Packs the three characters starting at an offset into one key.
+	 *
+	 * @param text The text.
+	 * @param offset The offset of the first character.
+	 * @return The packed trigram.
+	 */
+	private static long pack(String text, int offset) {
+		return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+	}
+
+	/**
+	 * Packs the one or two characters starting at an offset into a word prefix key.
+	 *
+	 * @param text The text.
+	 * @param offset The offset of the first character.
+	 * @param length The number of characters, 1 or 2.
+	 * @return The packed prefix.
+	 */
+	private static long packPrefix(String text, int offset, int length) {
+		long key = PREFIX | ((long) text.charAt(offset) << 16);
+		return length == 1 ? key : key | (1L << 32) | text.charAt(offset + 1);
+	}
+
+	/**
+	 * Lists the keys a normalized name is indexed under: its trigrams and the one- and
+	 * two-character prefixes of its words. A key may be listed more than once.
+	 *
+	 * @param name The normalized name.
+	 * @return The packed keys.
+	 */
+	private static long[] keys(String name) {
+		long[] keys = new long[Math.max(name.length() - 2, 0) + name.length() * 2];
+		int count = 0;
+		for (int i = 0; i + 3 <= name.length(); i++) {
+			keys[count++] = pack(name, i);
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (!Character.isWhitespace(name.charAt(i)) && (i == 0 || Character.isWhitespace(name.charAt(i - 1)))) {
+				keys[count++] = packPrefix(name, i, 1); // Start of a word
+				if (i + 1 < name.length() && !Character.isWhitespace(name.charAt(i + 1))) {
+					keys[count++] = packPrefix(name, i, 2);
+				}
+			}
+		}
+		return Arrays.copyOf(keys, count);
+	}
+}
@@ -0,0 +1,253 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * The ValueIndex class orders assets by purchased value. It holds the value in
+ * cents and the id of every asset with a numeric value in two parallel arrays
+ * sorted by value, then id, so a value range is found with two binary searches
+ * and the most valuable assets are the end of the arrays. Assets whose value is
+ * missing or not a number are left out.
+ *
+ * New entries are appended unsorted and only merged into place by {@link #sort()},
+ * so loading many assets costs one sort instead of one insertion each. Reads scan
+ * the few entries not merged yet besides searching the sorted ones, and never
+ * modify the index, so they can run side by side; the owner merges the entries
+ * with {@link #sortIfLong()} once there are too many to scan.
+ */
+class ValueIndex implements AssetIndex {
+	static final int MAX_UNSORTED = 64; // Unsorted entries reads scan before sortIfLong() merges them
+
+	private long[] values = new long[16]; // Values in cents, sorted up to sortedSize
+	private int[] ids = new int[16]; // Asset id of each value
+	private int size; // Number of entries
+	private int sortedSize; // Length of the sorted prefix; later entries await merging
+
+	@Override
+	public void add(AssetInfo asset) {
+		if (!asset.hasValue()) {
+			return;
+		}
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+		values[size] = asset.getValueCents();
+		ids[size] = asset.getId();
+		if (sortedSize == size && (size == 0 || compare(size - 1, size) < 0)) {
+			sortedSize++; // Already in place
+		}
+		size++;
+	}
+
+	@Override
+	public void remove(AssetInfo asset) {
+		if (!asset.hasValue()) {
+			return;
+		}
+		for (int i = sortedSize; i < size; i++) {
+			if (values[i] == asset.getValueCents() && ids[i] == asset.getId()) {
+				values[i] = values[size - 1]; // The unsorted entries are in no order to keep
+				ids[i] = ids[size - 1];
+				size--;
+				return;
+			}
+		}
+		int index = find(asset.getValueCents(), asset.getId());
+		if (index < sortedSize && values[index] == asset.getValueCents() && ids[index] == asset.getId()) {
+			System.arraycopy(values, index + 1, values, index, size - index - 1);
+			System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+			size--;
+			sortedSize--;
+		}
+	}
+
+	@Override
+	public void update(AssetInfo current, AssetInfo updated) {
+		if (current.getValueCents() != updated.getValueCents()) {
+			remove(current);
+			add(updated);
+		}
+	}
+
+	/**
+	 * Returns the ids of assets whose value lies within a range, the lowest value first.
+	 *
+	 * @param min The lowest value in cents, included.
+	 * @param max The highest value in cents, included.
+	 * @return The matching ids.
+	 */
+	int[] between(long min, long max) {
+		int from = find(min, Integer.MIN_VALUE);
+		int to = Math.max(from, find(max, Integer.MAX_VALUE));
+		long[] tailValues = new long[size - sortedSize];
+		int[] tailIds = new int[size - sortedSize];
+		int matches = 0;
+		for (int i = sortedSize; i < size; i++) {
+			if (values[i] >= min && values[i] <= max) {
+				tailValues[matches] = values[i];
+				tailIds[matches++] = ids[i];
+			}
+		}
+		if (matches == 0) {
+			return Arrays.copyOfRange(ids, from, to);
+		}
+		mergeSort(tailValues, tailIds, new long[matches], new int[matches], 0, matches);
+		int[] result = new int[to - from + matches];
+		int i = from;
+		int j = 0;
+		for (int k = 0; k < result.length; k++) {
+			if (j >= matches || (i < to && (values[i] < tailValues[j] || (values[i] == tailValues[j] && ids[i] < tailIds[j])))) {
+				result[k] = ids[i++];
+			} else {
+				result[k] = tailIds[j++];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the assets whose value lies within a range without listing them.
+	 *
+	 * @param min The lowest value in cents, included.
+	 * @param max The highest value in cents, included.
+	 * @return The number of matching assets.
+	 */
+	int countBetween(long min, long max) {
+		int count = Math.max(0, find(max, Integer.MAX_VALUE) - find(min, Integer.MIN_VALUE));
+		for (int i = sortedSize; i < size; i++) {
+			if (values[i] >= min && values[i] <= max) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the ids of the most valuable assets.
+	 *
+	 * @param limit The maximum number of ids to return.
+	 * @return Up to limit ids, the highest value first.
+	 */
+	int[] top(int limit) {
+		long[] tailValues = Arrays.copyOfRange(values, sortedSize, size);
+		int[] tailIds = Arrays.copyOfRange(ids, sortedSize, size);
+		mergeSort(tailValues, tailIds, new long[tailValues.length], new int[tailIds.length], 0, tailValues.length);
+		int count = Math.min(limit, size);
+		int[] result = new int[count];
+		int i = sortedSize - 1;
+		int j = tailValues.length - 1;
+		for (int k = 0; k < count; k++) {
+			if (j < 0 || (i >= 0 && (values[i] > tailValues[j] || (values[i] == tailValues[j] && ids[i] > tailIds[j])))) {
+				result[k] = ids[i--];
+			} else {
+				result[k] = tailIds[j--];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the first sorted entry at or after a value and id.
+	 *
+	 * @param value The value in cents.
+	 * @param id The id.
+	 * @return The position of the entry, or sortedSize if every sorted entry is before it.
+	 */
+	private int find(long value, int id) {
+		int low = 0;
+		int high = sortedSize;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] < value || (values[middle] == value && ids[middle] < id)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Merges the unsorted entries into place once there are more than reads should
+	 * scan. Called after each change.
+	 */
+	void sortIfLong() {
+		if (size - sortedSize >= MAX_UNSORTED) {
+			sort();
+		}
+	}
+
+	/**
+	 * Sorts the entries appended since the last sort and merges them into the sorted
+	 * prefix. Called once many entries were added, as after loading.
+	 */
+	void sort() {
+		if (sortedSize == size) {
+			return;
+		}
+		long[] tailValues = Arrays.copyOfRange(values, sortedSize, size);
+		int[] tailIds = Arrays.copyOfRange(ids, sortedSize, size);
+		mergeSort(tailValues, tailIds, new long[tailValues.length], new int[tailIds.length], 0, tailValues.length);
+
+		// Merge from the back so the sorted prefix can stay where it is
+		int i = sortedSize - 1;
+		int j = tailValues.length - 1;
+		for (int k = size - 1; j >= 0; k--) {
+			if (i >= 0 && (values[i] > tailValues[j] || (values[i] == tailValues[j] && ids[i] > tailIds[j]))) {
+				values[k] = values[i];
+				ids[k] = ids[i];
+				i--;
+			} else {
+				values[k] = tailValues[j];
+				ids[k] = tailIds[j];
+				j--;
+			}
+		}
+		sortedSize = size;
+	}
+
+	/**
+	 * Sorts a range of parallel arrays by value, then id.
+	 *
+	 * @param values The values.
+	 * @param ids The ids.
+	 * @param valueBuffer Scratch space as long as values.
+	 * @param idBuffer Scratch space as long as ids.
+	 * @param from The first position of the range.
+	 * @param to The position after the range.
+	 */
+	private static void mergeSort(long[] values, int[] ids, long[] valueBuffer, int[] idBuffer, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(values, ids, valueBuffer, idBuffer, from, middle);
+		mergeSort(values, ids, valueBuffer, idBuffer, middle, to);
+		int i = from;
+		int j = middle;
+		for (int k = from; k < to; k++) {
+			if (j >= to || (i < middle && (values[i] < values[j] || (values[i] == values[j] && ids[i] < ids[j])))) {
+				valueBuffer[k] = values[i];
+				idBuffer[k] = ids[i++];
+			} else {
+				valueBuffer[k] = values[j];
+				idBuffer[k] = ids[j++];
+			}
+		}
+		System.arraycopy(valueBuffer, from, values, from, to - from);
+		System.arraycopy(idBuffer, from, ids, from, to - from);
+	}
+
+	/**
+	 * Compares two entries by value, then id.
+	 *
+	 * @param a The position of the first entry.
+	 * @param b The position of the second entry.
+	 * @return A negative number, zero or a positive number as the first entry is before, equal to or after the second.
+	 */
+	private int compare(int a, int b) {
+		int order = Long.compare(values[a], values[b]);
+		return order != 0 ? order : Integer.compare(ids[a], ids[b]);
+	}
+}
@@ -0,0 +1,76 @@
+package application;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The ValueTotals class keeps a running total of purchased values per value of
+ * one asset field, such as the category or the location. Each change adjusts one
+ * or two totals, so reading a total never walks the assets.
+ */
+class ValueTotals implements AssetIndex {
+	private final Function<AssetInfo, String> field; // Reads the field the totals are grouped by
+	private final Map<String, long[]> totals = new HashMap<>(); // Field value to {cents, assets with a value, assets without}
+
+	/**
+	 * Creates totals grouped by one field.
+	 *
+	 * @param field Reads the field the totals are grouped by.
+	 */
+	ValueTotals(Function<AssetInfo, String> field) {
+		this.field = field;
+	}
+
+	@Override
+	public void add(AssetInfo asset) {
+		long[] total = totals.computeIfAbsent(field.apply(asset), key -> new long[3]);
+		if (asset.hasValue()) {
+			total[0] += asset.getValueCents();
+			total[1]++;
+		} else {
+			total[2]++;
+		}
+	}
+
+	@Override
+	public void remove(AssetInfo asset) {
+		String key = field.apply(asset);
+		long[] total = totals.get(key);
+		if (total == null) {
+			return;
+		}
+		if (asset.hasValue()) {
+			total[0] -= asset.getValueCents();
+			total[1]--;
+		} else {
+			total[2]--;
+		}
+		if (total[1] == 0 && total[2] == 0) {
+			totals.remove(key);
+		}
+	}
+
+	/**
+	 * Returns the total purchased value of the assets holding a field value.
+	 *
+	 * @param value The field value.
+	 * @return The total in cents.
+	 */
+	long total(String value) {
+		long[] total = totals.get(value);
+		return total != null ? total[0] : 0;
+	}
+
+	/**
+	 * Returns the number of assets holding a field value whose purchased value is
+	 * missing or not a number, and so is left out of the total.
+	 *
+	 * @param value The field value.
+	 * @return The number of assets without a value.
+	 */
+	int countWithoutValue(String value) {
+		long[] total = totals.get(value);
+		return total != null ? (int) total[2] : 0;
+	}
+}
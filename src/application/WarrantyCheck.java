@@ -0,0 +1,129 @@
+package application;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The WarrantyCheck class counts the assets whose warranty has expired or is about
+ * to expire. At startup it streams assets.csv and decodes only the warranty
+ * expiration column, so no AssetInfo objects are built just to show the warning.
+ */
+public class WarrantyCheck {
+	static final int SOON_DAYS = 30; // Days ahead in which a warranty counts as expiring soon
+
+	private int expired; // Assets whose warranty expired before today
+	private int expiringSoon; // Assets whose warranty expires within SOON_DAYS from today
+
+	/**
+	 * Creates empty counts.
+	 */
+	private WarrantyCheck() {
+	}
+
+	/**
+	 * Creates counts taken elsewhere, such as from the warranty index of the repository.
+	 *
+	 * @param expired The number of assets whose warranty has expired.
+	 * @param expiringSoon The number of assets whose warranty expires within {@link #SOON_DAYS} days.
+	 */
+	WarrantyCheck(int expired, int expiringSoon) {
+		this.expired = expired;
+		this.expiringSoon = expiringSoon;
+	}
+
+	/**
+	 * Counts the warranties of the assets stored in a CSV file on a thread of its
+	 * own. If the file has journal records that are not folded in yet, the counts
+	 * come from the shared repository once its load completes instead, since the
+	 * file alone is out of date; no thread waits for that load.
+	 *
+	 * @param csvPath The CSV file holding the assets.
+	 * @param today The date to compare against.
+	 * @return The counts, completed once they are known.
+	 */
+	public static CompletableFuture<WarrantyCheck> check(Path csvPath, LocalDate today) {
+		if (Files.exists(csvPath.resolveSibling(csvPath.getFileName() + AssetJournal.SUFFIX))) {
+			return AssetRepository.whenLoaded().thenApply(repository -> repository.checkWarranties(today));
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return scan(csvPath, today);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, work -> {
+			Thread thread = new Thread(work, "warranty-check");
+			thread.setDaemon(true);
+			thread.start();
+		});
+	}
+
+	/**
+	 * Counts the warranties of the assets stored in a CSV file, decoding only the
+	 * warranty expiration column.
+	 *
+	 * @param csvPath The CSV file holding the assets.
+	 * @param today The date to compare against.
+	 * @return The counts.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static WarrantyCheck scan(Path csvPath, LocalDate today) throws IOException {
+		WarrantyCheck result = new WarrantyCheck();
+		if (Files.exists(csvPath)) {
+			long todayDay = today.toEpochDay();
+			MappedAssetReader.scan(csvPath, row -> {
+				LocalDate warrantyExpirationDate = row.getDate(6); // Only the warranty column is decoded
+				if (warrantyExpirationDate != null) {
+					result.add(todayDay, warrantyExpirationDate.toEpochDay());
+				}
+				return true;
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Adds one warranty to the counts.
+	 *
+	 * @param today The epoch day of today.
+	 * @param expiration The epoch day the warranty expires.
+	 */
+	private void add(long today, long expiration) {
+		if (expiration < today) {
+			expired++;
+		} else if (expiration <= today + SOON_DAYS) {
+			expiringSoon++;
+		}
+	}
+
+	/**
+	 * Returns whether any warranty has expired.
+	 *
+	 * @return true if at least one warranty has expired.
+	 */
+	public boolean hasExpired() {
+		return expired > 0;
+	}
+
+	/**
+	 * Returns the number of assets whose warranty has expired.
+	 *
+	 * @return The expired count.
+	 */
+	public int getExpired() {
+		return expired;
+	}
+
+	/**
+	 * Returns the number of assets whose warranty expires within {@link #SOON_DAYS} days.
+	 *
+	 * @return The expiring-soon count.
+	 */
+	public int getExpiringSoon() {
+		return expiringSoon;
+	}
+}
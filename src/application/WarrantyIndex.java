@@ -0,0 +1,114 @@
+package application;
+
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The WarrantyIndex class orders assets by warranty expiration date. It answers
+ * which warranties have expired by a date and which expire within a date range,
+ * in logarithmic time plus the size of the answer. Assets
+ * without a warranty expiration date are not indexed.
+ */
+class WarrantyIndex implements AssetIndex {
+	private final NavigableMap<Long, IdSet> byExpiration = new TreeMap<>(); // Epoch day to asset ids
+
+	@Override
+	public void add(AssetInfo asset) {
+		LocalDate expiration = asset.getWarrantyExpirationLocalDate();
+		if (expiration != null) {
+			byExpiration.computeIfAbsent(expiration.toEpochDay(), day -> new IdSet()).add(asset.getId());
+		}
+	}
+
+	@Override
+	public void remove(AssetInfo asset) {
+		LocalDate expiration = asset.getWarrantyExpirationLocalDate();
+		if (expiration == null) {
+			return;
+		}
+		IdSet ids = byExpiration.get(expiration.toEpochDay());
+		if (ids != null && ids.remove(asset.getId()) && ids.size() == 0) {
+			byExpiration.remove(expiration.toEpochDay());
+		}
+	}
+
+	/**
+	 * Returns the ids of assets whose warranty expired before a date, the earliest first.
+	 *
+	 * @param date The date to compare against; a warranty expiring on it has not expired.
+	 * @return The matching ids.
+	 */
+	int[] expiredAsOf(LocalDate date) {
+		return collect(byExpiration.headMap(date.toEpochDay(), false));
+	}
+
+	/**
+	 * Returns the ids of assets whose warranty expires within a date range, the earliest first.
+	 *
+	 * @param from The first date of the range.
+	 * @param to The last date of the range.
+	 * @return The matching ids.
+	 */
+	int[] expiringBetween(LocalDate from, LocalDate to) {
+		if (to.isBefore(from)) {
+			return new int[0];
+		}
+		return collect(byExpiration.subMap(from.toEpochDay(), true, to.toEpochDay(), true));
+	}
+
+	/**
+	 * Counts the assets whose warranty expired before a date without listing them.
+	 *
+	 * @param date The date to compare against; a warranty expiring on it has not expired.
+	 * @return The number of matching assets.
+	 */
+	int countExpiredAsOf(LocalDate date) {
+		return count(byExpiration.headMap(date.toEpochDay(), false));
+	}
+
+	/**
+	 * Counts the assets whose warranty expires within a date range without listing them.
+	 *
+	 * @param from The first date of the range.
+	 * @param to The last date of the range.
+	 * @return The number of matching assets.
+	 */
+	int countExpiringBetween(LocalDate from, LocalDate to) {
+		if (to.isBefore(from)) {
+			return 0;
+		}
+		return count(byExpiration.subMap(from.toEpochDay(), true, to.toEpochDay(), true));
+	}
+
+	/**
+	 * Counts the ids in a range of the index.
+	 *
+	 * @param range The part of the index to read.
+	 * @return The number of ids.
+	 */
+	private static int count(NavigableMap<Long, IdSet> range) {
+		int count = 0;
+		for (IdSet ids : range.values()) {
+			count += ids.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Gathers the ids of a range of the index in date order.
+	 *
+	 * @param range The part of the index to read.
+	 * @return The ids.
+	 */
+	private static int[] collect(NavigableMap<Long, IdSet> range) {
+		int[] result = new int[count(range)];
+		int count = 0;
+		for (IdSet ids : range.values()) {
+			for (int i = 0; i < ids.size(); i++) {
+				result[count++] = ids.get(i);
+			}
+		}
+		return result;
+	}
+}
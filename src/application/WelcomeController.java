@@ -6,9 +6,6 @@ import javafx.scene.Node;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.stage.Stage;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 
 /**
  * The WelcomeController class controls the behavior of the welcome page.
@@ -42,12 +39,7 @@ public class WelcomeController {
     private void goToCategoryPage(ActionEvent event) {
         try {
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow(); // Gets the stage from the event source
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/NewCategory.fxml")); // Load the FXML file for page
-            Parent root = loader.load(); // Loads the root element of the FXML file
-            Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-            stage.setScene(scene); // Sets the scene to the stage
-            stage.setTitle("Define New Category"); // Sets the title of the stage
-            stage.show(); // Shows the stage
+            Navigator.show(stage, Navigator.NEW_CATEGORY, "Define New Category");
         } catch (Exception e) {
             e.printStackTrace(); // Prints the stack trace if an exception occurs
         }
@@ -63,12 +55,7 @@ public class WelcomeController {
     private void goToLocationPage(ActionEvent event) {
         try {
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow(); // Gets the stage from the event source
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/NewLocation.fxml")); // Load the FXML file for page
-            Parent root = loader.load(); // Loads the root element of the FXML file
-            Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-            stage.setScene(scene); // Sets the scene to the stage
-            stage.setTitle("Enter New Location Name"); // Sets the title of the stage
-            stage.show(); // Shows the stage
+            Navigator.show(stage, Navigator.NEW_LOCATION, "Enter New Location Name");
         } catch (Exception e) {
             e.printStackTrace(); // Prints the stack trace if an exception occurs
         }
@@ -78,12 +65,7 @@ public class WelcomeController {
     	
     	try {
     		Stage stage = (Stage)((Node) event.getSource()).getScene().getWindow();
-    		 FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/NewAsset.fxml")); // Load the FXML file for page
-             Parent root = loader.load(); // Loads the root element of the FXML file
-             Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-             stage.setScene(scene); // Sets the scene to the stage
-             stage.setTitle("Enter New Asset"); // Sets the title of the stage
-             stage.show(); // Shows the stage
+    		 Navigator.show(stage, Navigator.NEW_ASSET, "Enter New Asset");
     	}catch(Exception e) {
     		e.printStackTrace();// Prints the stack trace if an exception occurs
     	}
@@ -94,12 +76,7 @@ public class WelcomeController {
     	
     	try {
     		Stage stage = (Stage)((Node) event.getSource()).getScene().getWindow();
-    		 FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/Search.fxml")); // Load the FXML file for page
-             Parent root = loader.load(); // Loads the root element of the FXML file
-             Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-             stage.setScene(scene); // Sets the scene to the stage
-             stage.setTitle("Search"); // Sets the title of the stage
-             stage.show(); // Shows the stage
+    		 Navigator.show(stage, Navigator.SEARCH, "Search");
     	}catch(Exception e) {
     		e.printStackTrace();// Prints the stack trace if an exception occurs
     	}
@@ -110,12 +87,17 @@ public class WelcomeController {
     private void goToExpiredPage(ActionEvent event) {
         try {
             Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/ListAssetbyExpired.fxml"));
-            Parent root = loader.load();
-            Scene scene = new Scene(root);
-            stage.setScene(scene);
-            stage.setTitle("Expired Warranties");
-            stage.show();
+            Navigator.show(stage, Navigator.BY_EXPIRED, "Expired Warranties");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @FXML
+    private void goToFilterPage(ActionEvent event) {
+        try {
+            Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
+            Navigator.show(stage, Navigator.FILTER, "Filter Assets");
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -126,12 +108,7 @@ public class WelcomeController {
     	
     	try {
     		Stage stage = (Stage)((Node) event.getSource()).getScene().getWindow();
-    		 FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/ListAssetbyCategory.fxml")); // Load the FXML file for page
-             Parent root = loader.load(); // Loads the root element of the FXML file
-             Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-             stage.setScene(scene); // Sets the scene to the stage
-             stage.setTitle("List Asset by Category"); // Sets the title of the stage
-             stage.show(); // Shows the stage
+    		 Navigator.show(stage, Navigator.BY_CATEGORY, "List Asset by Category");
     	}catch(Exception e) {
     		e.printStackTrace();// Prints the stack trace if an exception occurs
     	}
@@ -142,12 +119,7 @@ public class WelcomeController {
     	
     	try {
     		Stage stage = (Stage)((Node) event.getSource()).getScene().getWindow();
-    		 FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/ListAssetbyLocation.fxml")); // Load the FXML file for page
-             Parent root = loader.load(); // Loads the root element of the FXML file
-             Scene scene = new Scene(root); // Creates a new scene with the loaded root element
-             stage.setScene(scene); // Sets the scene to the stage
-             stage.setTitle("List Asset by Location"); // Sets the title of the stage
-             stage.show(); // Shows the stage
+    		 Navigator.show(stage, Navigator.BY_LOCATION, "List Asset by Location");
     	}catch(Exception e) {
     		e.printStackTrace();// Prints the stack trace if an exception occurs
     	}
@@ -0,0 +1,323 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * The RepositoryStress class runs lookups and changes against one AssetRepository
+ * from several threads at once and checks afterwards that no change was lost and
+ * that every index agrees with a scan of the assets. It prints the lookups and
+ * changes made per second and the latency of the lookups.
+ *
+ * It runs without JavaFX on a copy of the CSV file, so the file itself is left alone:
+ *
+ * java -cp bin application.RepositoryStress assets.csv [readers] [writers] [seconds]
+ *
+ * Each writer adds, edits and removes assets of a category of its own. Writers
+ * take turns through a lock of their own while they read the rows of their
+ * category, as the application makes every change on the JavaFX Application
+ * Thread; the readers are never held up by it.
+ */
+public class RepositoryStress {
+	private static volatile boolean stop; // Whether the threads should finish
+
+	/**
+	 * Runs the stress test.
+	 *
+	 * @param args The CSV file, then optionally the reader count, writer count and seconds to run.
+	 * @throws Exception If the file cannot be copied or a thread is interrupted.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("Usage: RepositoryStress <assets.csv> [readers] [writers] [seconds]");
+			return;
+		}
+		int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int writers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		long millis = (long) (args.length > 3 ? Double.parseDouble(args[3]) * 1000 : 10000);
+
+		Path directory = Files.createTempDirectory("trackwise-stress");
+		Path csv = Files.copy(Paths.get(args[0]), directory.resolve("assets.csv"), StandardCopyOption.REPLACE_EXISTING);
+		AssetRepository repository = new AssetRepository(csv, false);
+		try {
+			run(repository, readers, writers, millis);
+		} finally {
+			repository.close();
+			deleteAll(directory);
+		}
+	}
+
+	/**
+	 * Runs the readers and writers for a while, then checks the repository.
+	 *
+	 * @param repository The repository.
+	 * @param readers The number of threads only looking assets up.
+	 * @param writers The number of threads changing assets.
+	 * @param millis How long to run.
+	 * @throws InterruptedException If interrupted while waiting for the threads.
+	 */
+	private static void run(AssetRepository repository, int readers, int writers, long millis)
+			throws InterruptedException {
+		AssetInfo first = repository.getAssets().get(0);
+		String category = first.getCategory();
+		String location = first.getLocation();
+		LocalDate today = LocalDate.now();
+		int loaded = repository.getAssets().size();
+
+		AtomicLong reads = new AtomicLong();
+		AtomicLong writes = new AtomicLong();
+		AtomicLong adds = new AtomicLong();
+		AtomicLong removes = new AtomicLong();
+		AtomicLong failures = new AtomicLong();
+		ReentrantLock turn = new ReentrantLock(); // Lets one writer at a time read and change rows
+		List<Map<String, Long>> expected = new ArrayList<>(); // Name to purchased value, per writer
+		List<Thread> threads = new ArrayList<>();
+
+		for (int w = 0; w < writers; w++) {
+			int writer = w;
+			String own = "Stress " + w;
+			Map<String, Long> live = new HashMap<>();
+			expected.add(live);
+			threads.add(new Thread(() -> {
+				Random random = new Random(writer);
+				int next = 0;
+				while (!stop) {
+					turn.lock();
+					try {
+						List<AssetInfo> mine = repository.findByCategory(own);
+						if (mine.size() != live.size()) {
+							failures.incrementAndGet();
+						}
+						int op = random.nextInt(10);
+						long cents = 100 + random.nextInt(100000);
+						LocalDate warranty = today.plusDays(random.nextInt(60) - 30);
+						if (op < 5 || mine.isEmpty()) {
+							String name = "w" + writer + "-" + next++;
+							repository.add(asset(name, own, location, cents, warranty));
+							live.put(name, cents);
+							adds.incrementAndGet();
+						} else if (op < 8) {
+							AssetInfo target = mine.get(random.nextInt(mine.size()));
+							String name = target.getName();
+							if (!repository.update(target, asset(name, own, location, cents, warranty))) {
+								failures.incrementAndGet();
+							}
+							live.put(name, cents);
+						} else {
+							AssetInfo target = mine.get(random.nextInt(mine.size()));
+							String name = target.getName();
+							if (!repository.remove(target)) {
+								failures.incrementAndGet();
+							}
+							live.remove(name);
+							removes.incrementAndGet();
+						}
+					} finally {
+						turn.unlock();
+					}
+					writes.incrementAndGet();
+				}
+			}, "stress-writer-" + w));
+		}
+
+		long[][] latencies = new long[readers][1 << 20];
+		int[] counts = new int[readers];
+		for (int t = 0; t < readers; t++) {
+			int reader = t;
+			threads.add(new Thread(() -> {
+				Random random = new Random(100 + reader);
+				AssetQuery query = new AssetQuery();
+				query.setCategory(category);
+				query.setMinValueCents(0L);
+				query.setMaxValueCents(50000L);
+				while (!stop) {
+					long start = System.nanoTime();
+					switch (random.nextInt(7)) {
+					case 0:
+						if (repository.getCategoryTotalCents(category) < 0) {
+							failures.incrementAndGet();
+						}
+						break;
+					case 1:
+						if (repository.count(category, location, null) < 0) {
+							failures.incrementAndGet();
+						}
+						break;
+					case 2:
+					case 3:
+						long low = random.nextInt(100000);
+						AssetQuery range = new AssetQuery();
+						range.setMinValueCents(low);
+						range.setMaxValueCents(low + 500);
+						if (repository.find(range).size() > loaded + adds.get()) {
+							failures.incrementAndGet();
+						}
+						break;
+					case 4:
+						repository.findExpiringBetween(today, today.plusDays(WarrantyCheck.SOON_DAYS));
+						break;
+					case 5:
+						repository.findMostValuable(10);
+						break;
+					default:
+						repository.find(query);
+						break;
+					}
+					if (counts[reader] < latencies[reader].length) {
+						latencies[reader][counts[reader]++] = System.nanoTime() - start;
+					}
+					reads.incrementAndGet();
+				}
+			}, "stress-reader-" + t));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		Thread.sleep(millis);
+		stop = true;
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (int w = 0; w < writers; w++) {
+			check(repository, "Stress " + w, expected.get(w));
+		}
+		if (repository.getAssets().size() != loaded + adds.get() - removes.get()) {
+			throw new AssertionError("Asset count " + repository.getAssets().size());
+		}
+		checkIndexes(repository, today);
+		if (failures.get() != 0) {
+			throw new AssertionError(failures.get() + " lookups or changes failed");
+		}
+
+		int total = 0;
+		for (int count : counts) {
+			total += count;
+		}
+		long[] all = new long[total];
+		int k = 0;
+		for (int t = 0; t < readers; t++) {
+			System.arraycopy(latencies[t], 0, all, k, counts[t]);
+			k += counts[t];
+		}
+		Arrays.sort(all);
+		System.out.printf("%d readers, %d writers, %.1f s on %d assets: %,d lookups/s, %,d changes/s", readers, writers,
+				millis / 1e3, loaded, reads.get() * 1000 / millis, writes.get() * 1000 / millis);
+		if (total > 0) {
+			System.out.printf(", lookup latency p50 %.0f us, p99 %.0f us, p99.9 %.0f us", all[total / 2] / 1e3,
+					all[(int) (total * 0.99)] / 1e3, all[(int) (total * 0.999)] / 1e3);
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Checks that the assets of a writer are the ones it left.
+	 *
+	 * @param repository The repository.
+	 * @param category The category of the writer.
+	 * @param live The purchased value of each asset the writer left, by name.
+	 */
+	private static void check(AssetRepository repository, String category, Map<String, Long> live) {
+		Map<String, Long> found = new HashMap<>();
+		long total = 0;
+		for (AssetInfo asset : repository.getAssets()) {
+			if (asset.getCategory().equals(category)) {
+				found.put(asset.getName(), asset.getValueCents());
+				total += asset.getValueCents();
+			}
+		}
+		if (!found.equals(live)) {
+			throw new AssertionError(category + " lost changes: " + found.size() + " assets, expected " + live.size());
+		}
+		if (repository.findByCategory(category).size() != live.size() || repository.count(category, null, null) != live.size()) {
+			throw new AssertionError("Category index of " + category);
+		}
+		if (repository.getCategoryTotalCents(category) != total) {
+			throw new AssertionError("Value total of " + category);
+		}
+	}
+
+	/**
+	 * Checks the value and warranty indexes against a scan of the assets.
+	 *
+	 * @param repository The repository.
+	 * @param today The date the warranties are judged on.
+	 */
+	private static void checkIndexes(AssetRepository repository, LocalDate today) {
+		Set<Integer> scanned = new HashSet<>();
+		long expired = 0;
+		long soon = 0;
+		for (AssetInfo asset : repository.getAssets()) {
+			if (asset.hasValue() && asset.getValueCents() >= 1000 && asset.getValueCents() <= 60000) {
+				scanned.add(asset.getId());
+			}
+			LocalDate warranty = asset.getWarrantyExpirationLocalDate();
+			if (warranty != null && warranty.isBefore(today)) {
+				expired++;
+			} else if (warranty != null && !warranty.isAfter(today.plusDays(WarrantyCheck.SOON_DAYS))) {
+				soon++;
+			}
+		}
+		AssetQuery range = new AssetQuery();
+		range.setMinValueCents(1000L);
+		range.setMaxValueCents(60000L);
+		Set<Integer> indexed = new HashSet<>();
+		for (AssetInfo asset : repository.find(range)) {
+			indexed.add(asset.getId());
+		}
+		if (!scanned.equals(indexed)) {
+			throw new AssertionError("Value index: " + indexed.size() + " assets, expected " + scanned.size());
+		}
+		WarrantyCheck counts = repository.checkWarranties(today);
+		if (repository.findExpiredAsOf(today).size() != expired || counts.getExpired() != expired
+				|| counts.getExpiringSoon() != soon) {
+			throw new AssertionError("Warranty index");
+		}
+	}
+
+	/**
+	 * Creates an asset to add or to replace one with.
+	 *
+	 * @param name The name.
+	 * @param category The category.
+	 * @param location The location.
+	 * @param cents The purchased value in cents.
+	 * @param warranty The warranty expiration date.
+	 * @return The asset.
+	 */
+	private static AssetInfo asset(String name, String category, String location, long cents, LocalDate warranty) {
+		return new AssetInfo(name, category, location, LocalDate.of(2020, 1, 1), "Stress test",
+				String.format("%d.%02d", cents / 100, cents % 100), warranty);
+	}
+
+	/**
+	 * Deletes the copy of the CSV file and the files written next to it.
+	 *
+	 * @param directory The temporary directory.
+	 * @throws IOException If a file cannot be deleted.
+	 */
+	private static void deleteAll(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+}